@@ -59,6 +59,111 @@ public class Settings {
   public static boolean CheckLastSeen = true;
   public static float CheckLastSeenSimilar = 0.95f;
 
+  /**
+   * true = search downsized images first and verify the candidates in the original (default: true)
+   * <br>only used for images larger than about 18 x 18 pixels without mask
+   * <br>the result is the same as with a search in the original within FindDownsizedTolerance:
+   * if the downsized search has no candidate or the best verified score is not at least
+   * FindDownsizedTolerance above the similarity, the original is searched as a whole
+   */
+  public static boolean FindDownsized = true;
+  /**
+   * a candidate on the downsized level must have a score of at least (similarity - FindDownsizedTolerance)
+   * and a verified match must have a score of more than (similarity + FindDownsizedTolerance)
+   * - otherwise the original is searched as a whole (default: 0.15)
+   */
+  public static double FindDownsizedTolerance = 0.15;
+  /**
+   * true = large search areas are split into overlapping tiles, that are searched in parallel (default: false)
+   */
+  public static boolean FindParallel = false;
+  /**
+   * true = with more than one monitor, find on the screen union searches each monitor on its own and in parallel
+   * <br>a target spanning two monitors is then not found (default: false = the union is searched as a whole)
+   */
+  public static boolean FindScreenParts = false;
+  /**
+   * true = repeated searches (wait, waitVanish, exists with timeout) only search again
+   * in the areas, that changed since the previous scan (default: false)
+   */
+  public static boolean FindIncremental = false;
+  /**
+   * targets with at least this number of pixels are matched in the frequency domain (Core.dft)
+   * <br>same scores as the standard matching, only used without mask (default: 0 = never)
+   */
+  public static int FindDFTMinTargetArea = 0;
+  /**
+   * true = find stops at the first match above the similarity instead of looking for the best one (default: false)
+   * <br>the search starts at the position, where the image was last seen, and then goes outward tile by tile
+   */
+  public static boolean FindFirstHit = false;
+
+  /**
+   * &gt; 0: the last full screen capture is reused for this many milliseconds (default: 0 = always capture)
+   * <br>captures of parts of the screen are taken from it, it is dropped after every mouse or keyboard action
+   */
+  public static int CaptureCacheTime = 0;
+
+  /**
+   * true = on Linux/X11 the screen is captured using the MIT-SHM extension (default: false)
+   * <br>falls back to the standard capture, if the extension is not usable (e.g. remote display)
+   */
+  public static boolean LinuxCaptureShm = false;
+
+  /**
+   * true = on Linux/X11 waits and observers only capture again, when the X DAMAGE extension
+   * reports a change in their region (default: false)
+   */
+  public static boolean LinuxDamageEvents = false;
+
+  /**
+   * true = waits and observers on the same screen share one capture loop (default: false)
+   * <br>it captures at the highest of their scan rates and each gets its region of the frame
+   */
+  public static boolean SharedCapture = false;
+
+  /**
+   * &gt; 0: max number of framebuffer copies per second taken from each VNC session (default: 0 = no limit)
+   * <br>captures in between are served from the last copy, it is dropped after every mouse or keyboard action
+   */
+  public static float VNCMaxFrameRate = 0;
+  /**
+   * &gt; 0: max number of VNC sessions running at the same time - more are refused (default: 0 = no limit)
+   * <br>each running session still needs its own thread, that blocks on the connection
+   */
+  public static int VNCMaxSessions = 0;
+
+  /**
+   * &gt; 0: this many of the recent screen captures are kept (compressed) per screen (default: 0 = none)
+   * <br>see Screen.getFrameHistory() and Region.saveFrameHistory()
+   */
+  public static int FrameHistorySize = 0;
+  /**
+   * max memory for the frame history of a screen in MB - the oldest frames are dropped (default: 64)
+   */
+  public static int FrameHistoryMaxMB = 64;
+  /**
+   * folder where the frame history (since the find started) is stored on each FindFailed (default: null = not stored)
+   * <br>each FindFailed gets its own subfolder, only with Settings.FrameHistorySize &gt; 0
+   */
+  public static String FrameHistoryFindFailedPath = null;
+
+  /**
+   * true = ImagePath.find looks up image names in an index of the folders and jars on the image path (default: true)
+   * <br>folders are watched for changes, without a native WatchService (e.g. macOS) the files are checked as before
+   */
+  public static boolean ImagePathIndex = true;
+
+  /**
+   * a folder: images from http(s) image paths are kept there and only fetched again,
+   * when the server reports a change (ETag, Last-Modified) (default: null = not cached)
+   */
+  public static String HTTPImageCacheFolder = null;
+  /**
+   * true = images from http(s) image paths are only taken from the HTTPImageCacheFolder (default: false)
+   */
+  public static boolean HTTPImageOffline = false;
+
   public static org.sikuli.script.ImageCallback ImageCallback = null;
 
   private static int ImageCache = 64;
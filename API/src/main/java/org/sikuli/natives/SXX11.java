@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2010-2019, sikuli.org, sikulix.com - MIT license
+ */
+
+package org.sikuli.natives;
+
+import com.sun.jna.Callback;
+import com.sun.jna.Library;
+import com.sun.jna.Native;
+import com.sun.jna.NativeLong;
+import com.sun.jna.Pointer;
+
+public interface SXX11 extends Library {
+
+  SXX11 INSTANCE = Native.load("X11", SXX11.class);
+
+  Pointer XOpenDisplay(String name);
+
+  int XCloseDisplay(Pointer display);
+
+  int XDefaultScreen(Pointer display);
+
+  NativeLong XRootWindow(Pointer display, int screen);
+
+  Pointer XDefaultVisual(Pointer display, int screen);
+
+  int XDefaultDepth(Pointer display, int screen);
+
+  int XDisplayWidth(Pointer display, int screen);
+
+  int XDisplayHeight(Pointer display, int screen);
+
+  int XSync(Pointer display, int discard);
+
+  int XFlush(Pointer display);
+
+  int XPending(Pointer display);
+
+  int XConnectionNumber(Pointer display);
+
+  int XNextEvent(Pointer display, Pointer event);
+
+  int XFree(Pointer data);
+
+  XErrorHandler XSetErrorHandler(XErrorHandler handler);
+
+  interface XErrorHandler extends Callback {
+    int apply(Pointer display, Pointer errorEvent);
+  }
+}
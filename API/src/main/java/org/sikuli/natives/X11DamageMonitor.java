@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) 2010-2019, sikuli.org, sikulix.com - MIT license
+ */
+package org.sikuli.natives;
+
+import com.sun.jna.Library;
+import com.sun.jna.Memory;
+import com.sun.jna.Native;
+import com.sun.jna.NativeLong;
+import com.sun.jna.Pointer;
+import com.sun.jna.Structure;
+import com.sun.jna.ptr.IntByReference;
+import org.sikuli.basics.Debug;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * INTERNAL USE: reports changed screen areas on Linux/X11 using the DAMAGE extension
+ * <br>waits and observers register a Watch for their region and only capture again,
+ * when the region was damaged (and immediately when it was)
+ */
+public class X11DamageMonitor {
+
+  private static String me = "X11DamageMonitor: ";
+  private static int lvl = 3;
+
+  private static void log(int level, String message, Object... args) {
+    Debug.logx(level, me + message, args);
+  }
+
+  //<editor-fold desc="native">
+  public interface Xdamage extends Library {
+    Xdamage INSTANCE = Native.load("Xdamage", Xdamage.class);
+
+    int XDamageQueryExtension(Pointer display, IntByReference eventBase, IntByReference errorBase);
+
+    NativeLong XDamageCreate(Pointer display, NativeLong drawable, int level);
+
+    void XDamageDestroy(Pointer display, NativeLong damage);
+  }
+
+  public static class XDamageNotifyEvent extends Structure {
+    public int type;
+    public NativeLong serial;
+    public int send_event;
+    public Pointer display;
+    public NativeLong drawable;
+    public NativeLong damage;
+    public int level;
+    public int more;
+    public NativeLong timestamp;
+    public short area_x;
+    public short area_y;
+    public short area_width;
+    public short area_height;
+    public short geometry_x;
+    public short geometry_y;
+    public short geometry_width;
+    public short geometry_height;
+
+    public XDamageNotifyEvent(Pointer p) {
+      super(p);
+      read();
+    }
+
+    @Override
+    protected List<String> getFieldOrder() {
+      return Arrays.asList("type", "serial", "send_event", "display", "drawable", "damage", "level", "more",
+              "timestamp", "area_x", "area_y", "area_width", "area_height",
+              "geometry_x", "geometry_y", "geometry_width", "geometry_height");
+    }
+  }
+
+  private static final int XDamageReportRawRectangles = 0;
+  private static final int XDamageNotify = 0;
+  // sizeof(XEvent): union padded to 24 longs
+  private static final int XEventSize = 24 * 8;
+  // struct pollfd {int fd; short events; short revents;}
+  private static final int PollFdSize = 8;
+  private static final short POLLIN = 1;
+  private static final int EINTR = 4;
+  //</editor-fold>
+
+  /**
+   * a region registered for damage reports
+   */
+  public static class Watch {
+    private final Rectangle area;
+    private boolean damaged = true;
+
+    private Watch(Rectangle area) {
+      this.area = new Rectangle(area);
+    }
+
+    private synchronized void damage(Rectangle rect) {
+      if (!damaged && area.intersects(rect)) {
+        damaged = true;
+        notifyAll();
+      }
+    }
+
+    /**
+     * to be called before capturing: damage from now on is reported by the next awaitDamage
+     */
+    public synchronized void reset() {
+      damaged = false;
+    }
+
+    /**
+     * @param millis max time to wait
+     * @return true if the region was damaged since the last reset
+     */
+    public synchronized boolean awaitDamage(long millis) {
+      long end = System.currentTimeMillis() + millis;
+      long rest = millis;
+      while (!damaged && !monitor.stopped && rest > 0) {
+        try {
+          wait(rest);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          break;
+        }
+        rest = end - System.currentTimeMillis();
+      }
+      return damaged || monitor.stopped;
+    }
+
+    public void close() {
+      monitor.watches.remove(this);
+    }
+  }
+
+  private static X11DamageMonitor monitor = null;
+  private static boolean checked = false;
+
+  /**
+   * @param area the region in global coordinates
+   * @return a registered Watch or null (damage reports not available)
+   */
+  public static Watch watch(Rectangle area) {
+    X11DamageMonitor damageMonitor = get();
+    if (damageMonitor == null || damageMonitor.stopped) {
+      return null;
+    }
+    Watch watch = new Watch(area);
+    damageMonitor.watches.add(watch);
+    return watch;
+  }
+
+  private static synchronized X11DamageMonitor get() {
+    if (!checked) {
+      checked = true;
+      X11DamageMonitor damageMonitor = new X11DamageMonitor();
+      try {
+        if (damageMonitor.init()) {
+          monitor = damageMonitor;
+          Thread eventThread = new Thread(damageMonitor::eventLoop, "SikuliX-XDamage");
+          eventThread.setDaemon(true);
+          eventThread.start();
+        } else {
+          damageMonitor.close();
+        }
+      } catch (Throwable e) {
+        log(-1, "not available: %s", e.getMessage());
+        damageMonitor.close();
+      }
+    }
+    return monitor;
+  }
+
+  private final List<Watch> watches = new CopyOnWriteArrayList<>();
+  private Pointer display = null;
+  private NativeLong damage = null;
+  private int damageEventBase = 0;
+  private volatile boolean stopped = false;
+
+  private X11DamageMonitor() {
+  }
+
+  private boolean init() {
+    display = SXX11.INSTANCE.XOpenDisplay(null);
+    if (display == null) {
+      log(lvl, "not used: no X display");
+      return false;
+    }
+    IntByReference eventBase = new IntByReference();
+    IntByReference errorBase = new IntByReference();
+    if (Xdamage.INSTANCE.XDamageQueryExtension(display, eventBase, errorBase) == 0) {
+      log(lvl, "not used: no DAMAGE extension");
+      return false;
+    }
+    damageEventBase = eventBase.getValue();
+    NativeLong root = SXX11.INSTANCE.XRootWindow(display, SXX11.INSTANCE.XDefaultScreen(display));
+    damage = Xdamage.INSTANCE.XDamageCreate(display, root, XDamageReportRawRectangles);
+    SXX11.INSTANCE.XSync(display, 0);
+    log(lvl, "using DAMAGE extension");
+    return true;
+  }
+
+  /**
+   * the display connection is only used by this thread
+   * <br>blocks in poll() on the connection fd while no events are queued,
+   * so an idle display (or one without watches) costs no cpu
+   */
+  private void eventLoop() {
+    Memory event = new Memory(XEventSize);
+    Memory pollFd = new Memory(PollFdSize);
+    pollFd.setInt(0, SXX11.INSTANCE.XConnectionNumber(display));
+    pollFd.setShort(4, POLLIN);
+    NativeLong one = new NativeLong(1);
+    Rectangle rect = new Rectangle();
+    while (!Thread.currentThread().isInterrupted()) {
+      while (SXX11.INSTANCE.XPending(display) > 0) {
+        SXX11.INSTANCE.XNextEvent(display, event);
+        if (event.getInt(0) != damageEventBase + XDamageNotify || watches.isEmpty()) {
+          continue;
+        }
+        XDamageNotifyEvent notify = new XDamageNotifyEvent(event);
+        rect.setBounds(notify.area_x, notify.area_y,
+                notify.area_width & 0xffff, notify.area_height & 0xffff);
+        for (Watch watch : watches) {
+          watch.damage(rect);
+        }
+      }
+      pollFd.setShort(6, (short) 0);
+      if (X11ShmCapture.LibC.INSTANCE.poll(pollFd, one, -1) < 0 && Native.getLastError() != EINTR) {
+        log(-1, "eventLoop: poll failed (%d) - damage reports stopped", Native.getLastError());
+        break;
+      }
+    }
+    // waiting watches fall back to scanning at the scan rate
+    stopped = true;
+    for (Watch watch : watches) {
+      synchronized (watch) {
+        watch.notifyAll();
+      }
+    }
+  }
+
+  private void close() {
+    if (display == null) {
+      return;
+    }
+    if (damage != null) {
+      Xdamage.INSTANCE.XDamageDestroy(display, damage);
+      damage = null;
+    }
+    SXX11.INSTANCE.XCloseDisplay(display);
+    display = null;
+  }
+}
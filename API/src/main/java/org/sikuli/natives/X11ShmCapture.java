@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) 2010-2019, sikuli.org, sikulix.com - MIT license
+ */
+package org.sikuli.natives;
+
+import com.sun.jna.Library;
+import com.sun.jna.Native;
+import com.sun.jna.NativeLong;
+import com.sun.jna.Pointer;
+import com.sun.jna.Structure;
+import org.sikuli.basics.Debug;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * INTERNAL USE: screen capture on Linux/X11 using the MIT-SHM extension
+ * <br>the pixels are grabbed into one shared memory segment (size of the root window),
+ * that is created once and reused for every capture (no XGetImage round trip through the socket)
+ */
+public class X11ShmCapture {
+
+  private static String me = "X11ShmCapture: ";
+  private static int lvl = 3;
+
+  private static void log(int level, String message, Object... args) {
+    Debug.logx(level, me + message, args);
+  }
+
+  //<editor-fold desc="native">
+  public interface Xext extends Library {
+    Xext INSTANCE = Native.load("Xext", Xext.class);
+
+    int XShmQueryExtension(Pointer display);
+
+    Pointer XShmCreateImage(Pointer display, Pointer visual, int depth, int format, Pointer data,
+                            XShmSegmentInfo shminfo, int width, int height);
+
+    int XShmAttach(Pointer display, XShmSegmentInfo shminfo);
+
+    int XShmDetach(Pointer display, XShmSegmentInfo shminfo);
+
+    int XShmGetImage(Pointer display, NativeLong drawable, Pointer image, int x, int y, NativeLong planeMask);
+  }
+
+  public interface LibC extends Library {
+    LibC INSTANCE = Native.load("c", LibC.class);
+
+    int shmget(int key, NativeLong size, int shmflg);
+
+    Pointer shmat(int shmid, Pointer shmaddr, int shmflg);
+
+    int shmdt(Pointer shmaddr);
+
+    int shmctl(int shmid, int cmd, Pointer buf);
+
+    int poll(Pointer fds, NativeLong nfds, int timeout);
+  }
+
+  public static class XShmSegmentInfo extends Structure {
+    public NativeLong shmseg;
+    public int shmid;
+    public Pointer shmaddr;
+    public int readOnly;
+
+    @Override
+    protected List<String> getFieldOrder() {
+      return Arrays.asList("shmseg", "shmid", "shmaddr", "readOnly");
+    }
+  }
+
+  /**
+   * the leading fields of XImage (only read)
+   */
+  public static class XImage extends Structure {
+    public int width;
+    public int height;
+    public int xoffset;
+    public int format;
+    public Pointer data;
+    public int byte_order;
+    public int bitmap_unit;
+    public int bitmap_bit_order;
+    public int bitmap_pad;
+    public int depth;
+    public int bytes_per_line;
+    public int bits_per_pixel;
+    public NativeLong red_mask;
+    public NativeLong green_mask;
+    public NativeLong blue_mask;
+
+    public XImage(Pointer p) {
+      super(p);
+      read();
+    }
+
+    @Override
+    protected List<String> getFieldOrder() {
+      return Arrays.asList("width", "height", "xoffset", "format", "data", "byte_order", "bitmap_unit",
+              "bitmap_bit_order", "bitmap_pad", "depth", "bytes_per_line", "bits_per_pixel",
+              "red_mask", "green_mask", "blue_mask");
+    }
+  }
+
+  private static final int ZPixmap = 2;
+  private static final int LSBFirst = 0;
+  private static final int IPC_PRIVATE = 0;
+  private static final int IPC_CREAT = 01000;
+  private static final int IPC_RMID = 0;
+  private static final NativeLong AllPlanes = new NativeLong(-1);
+  //</editor-fold>
+
+  private static X11ShmCapture capture = null;
+  private static boolean checked = false;
+
+  /**
+   * @return the capture for the default display or null (not Linux/X11, no MIT-SHM, remote display, ...)
+   */
+  public static synchronized X11ShmCapture get() {
+    if (!checked) {
+      checked = true;
+      if (!ByteOrder.nativeOrder().equals(ByteOrder.LITTLE_ENDIAN)) {
+        log(lvl, "not used: big endian");
+        return null;
+      }
+      X11ShmCapture shmCapture = new X11ShmCapture();
+      try {
+        if (shmCapture.init()) {
+          capture = shmCapture;
+          Runtime.getRuntime().addShutdownHook(new Thread(shmCapture::close));
+        } else {
+          shmCapture.close();
+        }
+      } catch (Throwable e) {
+        log(-1, "not available: %s", e.getMessage());
+        shmCapture.close();
+      }
+    }
+    return capture;
+  }
+
+  private Pointer display = null;
+  private NativeLong root = null;
+  private Pointer visual = null;
+  private int depth = 0;
+  private int rootWidth = 0;
+  private int rootHeight = 0;
+  private XShmSegmentInfo shminfo = null;
+  private boolean attached = false;
+  private Pointer image = null;
+  private XImage imageInfo = null;
+
+  private static volatile boolean attachFailed = false;
+  private static final SXX11.XErrorHandler attachErrorHandler = (display, errorEvent) -> {
+    attachFailed = true;
+    return 0;
+  };
+
+  private X11ShmCapture() {
+  }
+
+  private boolean init() {
+    display = SXX11.INSTANCE.XOpenDisplay(null);
+    if (display == null) {
+      log(lvl, "not used: no X display");
+      return false;
+    }
+    if (Xext.INSTANCE.XShmQueryExtension(display) == 0) {
+      log(lvl, "not used: no MIT-SHM extension");
+      return false;
+    }
+    int screen = SXX11.INSTANCE.XDefaultScreen(display);
+    root = SXX11.INSTANCE.XRootWindow(display, screen);
+    visual = SXX11.INSTANCE.XDefaultVisual(display, screen);
+    depth = SXX11.INSTANCE.XDefaultDepth(display, screen);
+    rootWidth = SXX11.INSTANCE.XDisplayWidth(display, screen);
+    rootHeight = SXX11.INSTANCE.XDisplayHeight(display, screen);
+
+    shminfo = new XShmSegmentInfo();
+    shminfo.shmid = LibC.INSTANCE.shmget(IPC_PRIVATE, new NativeLong(4L * rootWidth * rootHeight),
+            IPC_CREAT | 0600);
+    if (shminfo.shmid < 0) {
+      log(-1, "not available: shmget failed");
+      return false;
+    }
+    shminfo.shmaddr = LibC.INSTANCE.shmat(shminfo.shmid, null, 0);
+    if (Pointer.nativeValue(shminfo.shmaddr) == -1) {
+      log(-1, "not available: shmat failed");
+      shminfo.shmaddr = null;
+      LibC.INSTANCE.shmctl(shminfo.shmid, IPC_RMID, null);
+      return false;
+    }
+    shminfo.readOnly = 0;
+    shminfo.write();
+
+    // a failing attach (e.g. remote display) must not end up in the default handler (exit)
+    attachFailed = false;
+    SXX11.XErrorHandler previousHandler = SXX11.INSTANCE.XSetErrorHandler(attachErrorHandler);
+    Xext.INSTANCE.XShmAttach(display, shminfo);
+    SXX11.INSTANCE.XSync(display, 0);
+    SXX11.INSTANCE.XSetErrorHandler(previousHandler);
+    // the segment is removed, as soon as both sides have detached
+    LibC.INSTANCE.shmctl(shminfo.shmid, IPC_RMID, null);
+    if (attachFailed) {
+      log(lvl, "not used: XShmAttach failed (remote display?)");
+      return false;
+    }
+    attached = true;
+
+    if (!createImage(rootWidth, rootHeight)) {
+      return false;
+    }
+    if (imageInfo.bits_per_pixel != 32 || imageInfo.byte_order != LSBFirst
+            || imageInfo.red_mask.longValue() != 0xff0000 || imageInfo.green_mask.longValue() != 0xff00
+            || imageInfo.blue_mask.longValue() != 0xff) {
+      log(lvl, "not used: unsupported pixel format (depth %d, %d bits per pixel)",
+              imageInfo.depth, imageInfo.bits_per_pixel);
+      return false;
+    }
+    log(lvl, "using MIT-SHM: root %d x %d depth %d", rootWidth, rootHeight, depth);
+    return true;
+  }
+
+  private boolean createImage(int width, int height) {
+    if (image != null) {
+      if (imageInfo.width == width && imageInfo.height == height) {
+        return true;
+      }
+      // only the XImage header - the data is the shared segment
+      SXX11.INSTANCE.XFree(image);
+      image = null;
+    }
+    image = Xext.INSTANCE.XShmCreateImage(display, visual, depth, ZPixmap, shminfo.shmaddr, shminfo,
+            width, height);
+    if (image == null) {
+      log(-1, "XShmCreateImage failed: %d x %d", width, height);
+      return false;
+    }
+    imageInfo = new XImage(image);
+    return true;
+  }
+
+  /**
+   * the pixels are copied from the shared segment into a new image on every capture:
+   * the captures are kept as ScreenImage (last screen image, capture cache, frame history, observe),
+   * so an image reused for the next capture would change them afterwards
+   *
+   * @param rect area in global coordinates (must be within the root window)
+   * @return the image (TYPE_INT_RGB, owned by the caller) or null (not possible - caller should use the standard capture)
+   */
+  public synchronized BufferedImage capture(Rectangle rect) {
+    if (display == null || rect.width < 1 || rect.height < 1
+            || !new Rectangle(0, 0, rootWidth, rootHeight).contains(rect)) {
+      return null;
+    }
+    if (!createImage(rect.width, rect.height)) {
+      return null;
+    }
+    if (Xext.INSTANCE.XShmGetImage(display, root, image, rect.x, rect.y, AllPlanes) == 0) {
+      log(-1, "XShmGetImage failed: %s", rect);
+      return null;
+    }
+    BufferedImage bimg = new BufferedImage(rect.width, rect.height, BufferedImage.TYPE_INT_RGB);
+    int[] pixels = ((DataBufferInt) bimg.getRaster().getDataBuffer()).getData();
+    int stride = imageInfo.bytes_per_line;
+    if (stride == 4 * rect.width) {
+      shminfo.shmaddr.read(0, pixels, 0, pixels.length);
+    } else {
+      for (int row = 0; row < rect.height; row++) {
+        shminfo.shmaddr.read((long) row * stride, pixels, row * rect.width, rect.width);
+      }
+    }
+    return bimg;
+  }
+
+  private synchronized void close() {
+    if (display == null) {
+      return;
+    }
+    if (image != null) {
+      SXX11.INSTANCE.XFree(image);
+      image = null;
+    }
+    if (attached) {
+      Xext.INSTANCE.XShmDetach(display, shminfo);
+      SXX11.INSTANCE.XSync(display, 0);
+      attached = false;
+    }
+    if (shminfo != null && shminfo.shmaddr != null) {
+      LibC.INSTANCE.shmdt(shminfo.shmaddr);
+      shminfo.shmaddr = null;
+    }
+    SXX11.INSTANCE.XCloseDisplay(display);
+    display = null;
+  }
+}
@@ -3,6 +3,7 @@
  */
 package org.sikuli.script;
 
+import com.sun.jna.Pointer;
 import net.sourceforge.tess4j.Tesseract1;
 import net.sourceforge.tess4j.Word;
 import org.opencv.core.*;
@@ -19,13 +20,22 @@ import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferByte;
 import java.awt.image.DataBufferInt;
+import java.awt.image.IndexColorModel;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.IntBuffer;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 
 public class Finder implements Iterator<Match> {
@@ -35,6 +45,7 @@ public class Finder implements Iterator<Match> {
   private Image _image = null;
   private FindInput2 _findInput = new FindInput2();
   private FindResult2 _results = null;
+  private Iterator<Match> _matches = null;
   private Region where = null;
 
   public void setFindAll() {
@@ -149,6 +160,32 @@ public class Finder implements Iterator<Match> {
     _findInput.setSource(Finder2.makeMat(img.get()));
   }
 
+  /**
+   * internal use: Finder sharing the image of the given Finder (no new conversion)
+   * <br>the image is only read while searching, so these Finders can be used in parallel (findAny)
+   *
+   * @param baseFinder the Finder holding the image
+   * @param sub area within the image (topleft = (0,0)) - null means the whole image
+   * @param region the cropping region
+   */
+  protected Finder(Finder baseFinder, Rectangle sub, Region region) {
+    Mat mBase = baseFinder._findInput.getBase();
+    if (sub != null) {
+      mBase = mBase.submat(new Rect(sub.x, sub.y, sub.width, sub.height));
+    }
+    _findInput.setSource(mBase);
+    _region = region;
+  }
+
+  /**
+   * internal use: Finder returning the given matches (e.g. merged from the searches on several screens)
+   *
+   * @param matches the final matches
+   */
+  protected Finder(List<Match> matches) {
+    _matches = matches.iterator();
+  }
+
   private void initScreenFinder(ScreenImage simg, Region region) {
     _findInput = new FindInput2();
     setScreenImage(simg);
@@ -172,7 +209,7 @@ public class Finder implements Iterator<Match> {
    * internal use: repeat with same Finder
    */
   protected void findRepeat() {
-    _results = Finder2.find(_findInput);
+    setResults(findRepeated());
     currentMatchIndex = 0;
   }
 
@@ -181,10 +218,29 @@ public class Finder implements Iterator<Match> {
    */
   protected void findAllRepeat() {
     Debug timing = Debug.startTimer("Finder.findAll");
-    _results = Finder2.find(_findInput);
+    setResults(findRepeated());
     currentMatchIndex = 0;
     timing.end();
   }
+
+  private Finder2.FindState findState = null;
+
+  private FindResult2 findRepeated() {
+    if (!Settings.FindIncremental) {
+      return Finder2.find(_findInput);
+    }
+    if (findState == null) {
+      findState = new Finder2.FindState();
+    }
+    return Finder2.findIncremental(_findInput, findState);
+  }
+
+  private void setResults(FindResult2 results) {
+    if (_results != null) {
+      _results.release();
+    }
+    _results = results;
+  }
 //</editor-fold>
 
   //<editor-fold defaultstate="collapsed" desc="find">
@@ -214,7 +270,7 @@ public class Finder implements Iterator<Match> {
     return possibleImageResizeOrCallback(img, 0);
   }
 
-  private Mat possibleImageResizeOrCallback(Image img, float oneTimeResize) {
+  private static Mat possibleImageResizeOrCallback(Image img, float oneTimeResize) {
     BufferedImage newBimg = img.get();
     float factor = oneTimeResize;
     if (factor == 0 && Settings.AlwaysResize > 0 && Settings.AlwaysResize != 1) {
@@ -234,6 +290,75 @@ public class Finder implements Iterator<Match> {
     return mat;
   }
 
+  /**
+   * @return the key of the prepared target (resize factor as string) or null (image is not prepared)
+   */
+  private static String getPreparedKey(Image img, float oneTimeResize) {
+    if (SX.isNull(img.getURL()) || Settings.ImageCallback != null) {
+      return null;
+    }
+    float factor = oneTimeResize;
+    if (factor == 0 && Settings.AlwaysResize > 0 && Settings.AlwaysResize != 1) {
+      factor = Settings.AlwaysResize;
+    }
+    return String.format("%.4f", factor > 0 ? factor : 1);
+  }
+
+  /**
+   * INTERNAL USE: prepare the find target of the image (as done by the first find with it)
+   *
+   * @param img an image loaded from a file, jar or url
+   * @return true if prepared now or before
+   */
+  protected static boolean prepareTarget(Image img) {
+    String preparedKey = getPreparedKey(img, 0);
+    if (SX.isNull(preparedKey)) {
+      return false;
+    }
+    if (SX.isNotNull(img.getPreparedTarget(preparedKey, null))) {
+      return true;
+    }
+    FindInput2 findInput = new FindInput2();
+    findInput.setTarget(possibleImageResizeOrCallback(img, 0));
+    findInput.setPreparedFor(img, preparedKey, null);
+    findInput.setAttributes();
+    return true;
+  }
+
+  /**
+   * sets the find target - for images loaded from a file, jar or url
+   * the prepared target (Mat, mask and attributes) is reused from the image,
+   * if it was already prepared with the same resize factor and mask
+   *
+   * @param img the image
+   * @param oneTimeResize the Pattern's resize factor (0 if not given)
+   * @param patternMask the Pattern's mask or null
+   */
+  private void setTarget(Image img, float oneTimeResize, Mat patternMask) {
+    Rectangle lastSeen = img.getLastSeen();
+    if (lastSeen != null && _region != null) {
+      _findInput.setLikelyPosition(lastSeen.x - _region.x, lastSeen.y - _region.y);
+    } else {
+      _findInput.setLikelyPosition(-1, -1);
+    }
+    String preparedKey = getPreparedKey(img, oneTimeResize);
+    if (SX.isNotNull(preparedKey)) {
+      PreparedTarget prepared = img.getPreparedTarget(preparedKey, patternMask);
+      if (SX.isNotNull(prepared)) {
+        log(lvl + 1, "%s: prepared target reused", img.getName());
+        _findInput.setPrepared(prepared);
+        return;
+      }
+    }
+    if (SX.isNotNull(patternMask)) {
+      _findInput.setMask(patternMask);
+    }
+    _findInput.setTarget(possibleImageResizeOrCallback(img, oneTimeResize));
+    if (SX.isNotNull(preparedKey)) {
+      _findInput.setPreparedFor(img, preparedKey, patternMask);
+    }
+  }
+
   /**
    * do a find op with the given pattern in the Finder's image
    * (hasNext() and next() will reveal possible match results)
@@ -247,14 +372,11 @@ public class Finder implements Iterator<Match> {
     }
     if (aPtn.isValid()) {
       _pattern = aPtn;
-      if (_pattern.hasMask()) {
-        _findInput.setMask(_pattern.getMask());
-      }
       _image = aPtn.getImage();
-      _findInput.setTarget(possibleImageResizeOrCallback(_image, aPtn.getResize()));
+      setTarget(_image, aPtn.getResize(), _pattern.hasMask() ? _pattern.getMask() : null);
       _findInput.setSimilarity(aPtn.getSimilar());
       _findInput.setIsPattern();
-      _results = Finder2.find(_findInput);
+      setResults(Finder2.find(_findInput));
       currentMatchIndex = 0;
       return aPtn.getFilename();
     } else {
@@ -275,9 +397,9 @@ public class Finder implements Iterator<Match> {
     }
     if (img.isValid()) {
       _image = img;
-      _findInput.setTarget(possibleImageResizeOrCallback(img));
+      setTarget(img, 0, null);
       _findInput.setSimilarity(Settings.MinSimilarity);
-      _results = Finder2.find(_findInput);
+      setResults(Finder2.find(_findInput));
       currentMatchIndex = 0;
       return img.getFilename();
     } else if (img.isUseable()) {
@@ -345,7 +467,7 @@ public class Finder implements Iterator<Match> {
     if (isFindAll) {
       _findInput.setFindAll();
     }
-    _results = Finder2.find(_findInput);
+    setResults(Finder2.find(_findInput));
     currentMatchIndex = 0;
     return text;
   }
@@ -432,15 +554,12 @@ public class Finder implements Iterator<Match> {
     if (aPtn.isValid()) {
       _pattern = aPtn;
       _image = aPtn.getImage();
-      _findInput.setTarget(possibleImageResizeOrCallback(_image, aPtn.getResize()));
+      setTarget(_image, aPtn.getResize(), _pattern.hasMask() ? _pattern.getMask() : null);
       _findInput.setSimilarity(aPtn.getSimilar());
       _findInput.setIsPattern();
       _findInput.setFindAll();
-      if (_pattern.hasMask()) {
-        _findInput.setMask(_pattern.getMask());
-      }
       Debug timing = Debug.startTimer("Finder.findAll");
-      _results = Finder2.find(_findInput);
+      setResults(Finder2.find(_findInput));
       currentMatchIndex = 0;
       timing.end();
       return aPtn.getFilename();
@@ -462,11 +581,11 @@ public class Finder implements Iterator<Match> {
     }
     if (img.isValid()) {
       _image = img;
-      _findInput.setTarget(possibleImageResizeOrCallback(img));
+      setTarget(img, 0, null);
       _findInput.setSimilarity(Settings.MinSimilarity);
       _findInput.setFindAll();
       Debug timing = Debug.startTimer("Finder.findAll");
-      _results = Finder2.find(_findInput);
+      setResults(Finder2.find(_findInput));
       currentMatchIndex = 0;
       timing.end();
       return img.getFilename();
@@ -506,6 +625,9 @@ public class Finder implements Iterator<Match> {
    */
   @Override
   public boolean hasNext() {
+    if (_matches != null) {
+      return _matches.hasNext();
+    }
     if (_results != null && _results.hasNext()) {
       return true;
     }
@@ -519,6 +641,9 @@ public class Finder implements Iterator<Match> {
   @Override
   public Match next() {
     Match match = null;
+    if (_matches != null) {
+      return hasNext() ? _matches.next() : null;
+    }
     if (hasNext()) {
       match = _results.next();
       if (!_findInput.isText() && _region != null) {
@@ -572,7 +697,11 @@ public class Finder implements Iterator<Match> {
 
   public void destroy() {
     _findInput = null;
-    _results = null;
+    setResults(null);
+    if (findState != null) {
+      findState.release();
+      findState = null;
+    }
     _pattern = null;
   }
 //</editor-fold>
@@ -607,8 +736,8 @@ public class Finder implements Iterator<Match> {
 
     private static Log log = new Log("Finder2");
 
-    private Mat mBase = getNewMat();
-    private Mat mResult = getNewMat();
+    private Mat mBase = null;
+    private Mat mResult = null;
 
     private enum FindType {
       ONE, ALL
@@ -618,7 +747,7 @@ public class Finder implements Iterator<Match> {
     }
 
     public boolean isValid() {
-      return !mBase.empty();
+      return SX.isNotNull(mBase) && !mBase.empty();
     }
     //</editor-fold>
 
@@ -628,14 +757,25 @@ public class Finder implements Iterator<Match> {
       findInput.setAttributes();
       Finder2 finder2 = new Finder2();
       finder2.fInput = findInput;
-      FindResult2 results = finder2.doFind();
-      return results;
+      try {
+        return finder2.doFind();
+      } catch (MatchInterrupted e) {
+        log.trace("find: interrupted --- not found");
+        return null;
+      }
+    }
+
+    /**
+     * the thread was interrupted while matching in parallel (the interrupt flag is set again):
+     * the search ends without a result - there are no valid scores
+     */
+    private static class MatchInterrupted extends RuntimeException {
     }
 
     private final float resizeMinFactor = 1.5f;
     private final float[] resizeLevels = new float[]{1f, 0.4f};
     private boolean isCheckLastSeen = false;
-    private static final double downSimDiff = 0.15;
+    private static final int downMaxCandidates = 5;
 
     private int levelWord = 3;
     private int levelLine = 2;
@@ -806,80 +946,30 @@ public class Finder implements Iterator<Match> {
         FindInput2 findInput = fInput;
         log.trace("doFind: start %s", findInput);
         mBase = findInput.getBase();
-        boolean success = false;
         long begin_lap = 0;
         long begin_find = new Date().getTime();
         Core.MinMaxLocResult mMinMax = null;
 
-        double rfactor = 0;
-        boolean downSizeFound = false;
-        double downSizeScore = -1;
-        double downSizeWantedScore = 0;
-        Mat findWhere = getNewMat();
-        Mat findWhat = getNewMat();
-
-        boolean trueOrFalse = findInput.shouldSearchDownsized(resizeMinFactor);
-        //TODO search downsized?
-        trueOrFalse = false;
-        if (trueOrFalse) {
+        boolean searchFirstHit = Settings.FindFirstHit && !findInput.isFindAll()
+                && findInput.hasLikelyPosition() && !mBase.size().equals(findInput.getTarget().size());
+        if (searchFirstHit) {
+          // *************************************** search in tiles around the likely position
+          begin_lap = new Date().getTime();
+          findResult = doFindFirstHit(findInput);
+          log.trace("doFind: first hit: %s %d msec", SX.isNotNull(findResult) ? "found" : "not found",
+                  new Date().getTime() - begin_lap);
+        } else if (Settings.FindDownsized && findInput.shouldSearchDownsized(resizeMinFactor)
+                && !mBase.size().equals(findInput.getTarget().size())) {
           // ************************************************* search in downsized
           begin_lap = new Date().getTime();
-          double imgFactor = findInput.getResizeFactor();
-          Size sizeBase, sizePattern;
-          mResult = null;
-          for (double factor : resizeLevels) {
-            rfactor = factor * imgFactor;
-            sizeBase = new Size(this.mBase.cols() / rfactor, this.mBase.rows() / rfactor);
-            sizePattern = new Size(findInput.getTarget().cols() / rfactor, findInput.getTarget().rows() / rfactor);
-            Imgproc.resize(this.mBase, findWhere, sizeBase, 0, 0, Imgproc.INTER_AREA);
-            Imgproc.resize(findInput.getTarget(), findWhat, sizePattern, 0, 0, Imgproc.INTER_AREA);
-            mResult = doFindMatch(findWhat, findWhere, findInput);
-            mMinMax = Core.minMaxLoc(mResult);
-            downSizeWantedScore = ((int) ((findInput.getScore() - downSimDiff) * 100)) / 100.0;
-            downSizeScore = mMinMax.maxVal;
-            if (downSizeScore > downSizeWantedScore) {
-              downSizeFound = true;
-              break;
-            }
-          }
-          log.trace("downSizeFound: %s", downSizeFound);
-          log.trace("doFind: down: %%%.2f %d msec", 100 * mMinMax.maxVal, new Date().getTime() - begin_lap);
-        }
-        findWhere = this.mBase;
-        trueOrFalse = !findInput.isFindAll() && downSizeFound;
-        if (trueOrFalse) {
-          // ************************************* check after downsized success
-          if (findWhere.size().equals(findInput.getTarget().size())) {
-            // trust downsized mResult, if images have same size
-            return new FindResult2(mResult, findInput);
-          } else {
-            int maxLocX = (int) (mMinMax.maxLoc.x * rfactor);
-            int maxLocY = (int) (mMinMax.maxLoc.y * rfactor);
-            begin_lap = new Date().getTime();
-            int margin = ((int) findInput.getResizeFactor()) + 1;
-            Rectangle rSub = new Rectangle(Math.max(0, maxLocX - margin), Math.max(0, maxLocY - margin),
-                    Math.min(findInput.getTarget().width() + 2 * margin, findWhere.width()),
-                    Math.min(findInput.getTarget().height() + 2 * margin, findWhere.height()));
-            Rectangle rWhere = new Rectangle(0, 0, findWhere.cols(), findWhere.rows());
-            Rectangle rSubNew = rWhere.intersection(rSub);
-            Rect rectSub = new Rect(rSubNew.x, rSubNew.y, rSubNew.width, rSubNew.height);
-            mResult = doFindMatch(findInput.getTarget(), findWhere.submat(rectSub), findInput);
-            mMinMax = Core.minMaxLoc(mResult);
-            double maxVal = mMinMax.maxVal;
-            double wantedScore = findInput.getScore();
-            if (maxVal > wantedScore) {
-              findResult = new FindResult2(mResult, findInput, new int[]{rectSub.x, rectSub.y});
-            }
-            if (SX.isNotNull(findResult)) {
-              log.trace("doFind: after down: %%%.2f(?%%%.2f) %d msec",
-                      maxVal * 100, wantedScore * 100, new Date().getTime() - begin_lap);
-            }
-          }
+          findResult = doFindDownsized(findInput);
+          log.trace("doFind: downsized: %s %d msec", SX.isNotNull(findResult) ? "found" : "not found",
+                  new Date().getTime() - begin_lap);
         }
         // ************************************** search in original
-        if (downSizeScore < 0) {
+        if (SX.isNull(findResult) && !searchFirstHit) {
           begin_lap = new Date().getTime();
-          mResult = doFindMatch(findInput.getTarget(), findWhere, findInput);
+          mResult = doFindMatch(findInput.getTarget(), mBase, findInput);
           mMinMax = Core.minMaxLoc(mResult);
           if (!isCheckLastSeen) {
             log.trace("doFind: in original: %%%.4f (?%.0f) %d msec %s",
@@ -888,48 +978,646 @@ public class Finder implements Iterator<Match> {
           }
           if (mMinMax.maxVal > findInput.getScore()) {
             findResult = new FindResult2(mResult, findInput);
+          } else {
+            MatPool.put(mResult);
           }
+          mResult = null;
         }
         log.trace("doFind: end %d msec", new Date().getTime() - begin_find);
       }
       return findResult;
     }
 
+    /**
+     * coarse-to-fine search: the candidates found in the downsized images are verified
+     * in small areas of the original image, so the scores are the same as with a full search.
+     * <br>for find the best verified candidate is returned,
+     * <br>for findAll the verified areas are merged into a result of the original size.
+     * <br>a verified score less than Settings.FindDownsizedTolerance above the wanted score is not trusted
+     * (a better match might have been missed) - as well as no candidates on the first level: the caller then
+     * searches in the original, so the downsized search never adds more than one downsized pass to a miss.
+     *
+     * @param findInput the prepared find input
+     * @return the result or null (not found or not trusted - caller should search in the original)
+     */
+    private FindResult2 doFindDownsized(FindInput2 findInput) {
+      Mat mTarget = findInput.getTarget();
+      double wantedScore = findInput.getScore();
+      double downWantedScore = ((int) ((wantedScore - Settings.FindDownsizedTolerance) * 100)) / 100.0;
+      for (float level : resizeLevels) {
+        double rfactor = level * findInput.getResizeFactor();
+        if (rfactor < resizeMinFactor) {
+          continue;
+        }
+        Size sizeBase = new Size((int) (mBase.cols() / rfactor), (int) (mBase.rows() / rfactor));
+        Size sizeTarget = new Size((int) (mTarget.cols() / rfactor), (int) (mTarget.rows() / rfactor));
+        Mat findWhere = MatPool.get(sizeBase, mBase.type());
+        Mat findWhat = MatPool.get(sizeTarget, mTarget.type());
+        Imgproc.resize(mBase, findWhere, sizeBase, 0, 0, Imgproc.INTER_AREA);
+        Imgproc.resize(mTarget, findWhat, sizeTarget, 0, 0, Imgproc.INTER_AREA);
+        int margin = (int) Math.ceil(rfactor) + 1;
+        // find: only the best few are verified, findAll: all candidates above the downsized score
+        // (as long as verifying them is cheaper than a search in the original)
+        int maxCandidates = downMaxCandidates;
+        if (findInput.isFindAll()) {
+          maxCandidates = (int) (mBase.size().area() / 2
+                  / ((mTarget.cols() + 2 * margin) * (mTarget.rows() + 2 * margin))) + 1;
+        }
+        Mat mDownResult = doFindMatch(findWhat, findWhere, findInput);
+        List<Point> candidates = getDownsizedCandidates(mDownResult, downWantedScore, maxCandidates,
+                findWhat.cols(), findWhat.rows());
+        MatPool.put(mDownResult);
+        MatPool.put(findWhat);
+        MatPool.put(findWhere);
+        log.trace("doFindDownsized: factor %.2f: %d candidates (?%.0f)",
+                rfactor, candidates.size(), downWantedScore * 100);
+        if (candidates.isEmpty()) {
+          // other levels would not be more reliable - the original decides
+          log.trace("doFindDownsized: no candidates - searching in original");
+          return null;
+        }
+        if (candidates.size() >= maxCandidates) {
+          // there might be more candidates than the verified ones - the result might not be the best/complete
+          log.trace("doFindDownsized: candidate limit reached - searching in original");
+          return null;
+        }
+        long verifyArea = (long) candidates.size()
+                * (mTarget.cols() + 2 * margin) * (mTarget.rows() + 2 * margin);
+        if (verifyArea > mBase.size().area() / 2) {
+          log.trace("doFindDownsized: too many candidates - searching in original");
+          return null;
+        }
+        List<Rect> areas = new ArrayList<>();
+        for (Point candidate : candidates) {
+          int x = (int) (candidate.x * rfactor);
+          int y = (int) (candidate.y * rfactor);
+          int x1 = Math.max(0, x - margin);
+          int y1 = Math.max(0, y - margin);
+          int x2 = Math.min(mBase.cols(), x + mTarget.cols() + margin);
+          int y2 = Math.min(mBase.rows(), y + mTarget.rows() + margin);
+          if (x2 - x1 < mTarget.cols() || y2 - y1 < mTarget.rows()) {
+            continue;
+          }
+          areas.add(new Rect(x1, y1, x2 - x1, y2 - y1));
+        }
+        if (findInput.isFindAll()) {
+          return verifyDownsizedAll(findInput, areas, wantedScore);
+        }
+        return verifyDownsized(findInput, areas, wantedScore);
+      }
+      return null;
+    }
+
+    private static final int firstHitMinTile = 200;
+
+    /**
+     * first hit search: the score map is computed in tiles, starting with the tile at the likely position
+     * (last seen) and then outward - the first tile having a score above the wanted one is the result.
+     * <br>if no tile has a hit, the whole base was searched - so the target is not there
+     *
+     * @param findInput the prepared find input with a likely position
+     * @return the result (only the hit tile) or null (not found)
+     */
+    private FindResult2 doFindFirstHit(FindInput2 findInput) {
+      Mat mTarget = findInput.getTarget();
+      int resultCols = mBase.cols() - mTarget.cols() + 1;
+      int resultRows = mBase.rows() - mTarget.rows() + 1;
+      if (resultCols < 1 || resultRows < 1) {
+        return null;
+      }
+      int tileW = Math.max(firstHitMinTile, 2 * mTarget.cols());
+      int tileH = Math.max(firstHitMinTile, 2 * mTarget.rows());
+      int[] likely = findInput.getLikelyPosition();
+      int likelyX = Math.min(likely[0], resultCols - 1);
+      int likelyY = Math.min(likely[1], resultRows - 1);
+      // the tile grid is aligned, so that the likely position is in the center of a tile
+      int startX = Math.floorMod(likelyX - tileW / 2, tileW);
+      startX = startX > 0 ? startX - tileW : startX;
+      int startY = Math.floorMod(likelyY - tileH / 2, tileH);
+      startY = startY > 0 ? startY - tileH : startY;
+      List<Rect> tiles = new ArrayList<>();
+      for (int y = startY; y < resultRows; y += tileH) {
+        for (int x = startX; x < resultCols; x += tileW) {
+          int x1 = Math.max(0, x);
+          int y1 = Math.max(0, y);
+          int x2 = Math.min(resultCols, x + tileW);
+          int y2 = Math.min(resultRows, y + tileH);
+          tiles.add(new Rect(x1, y1, x2 - x1, y2 - y1));
+        }
+      }
+      tiles.sort(Comparator.comparingDouble((Rect tile) -> {
+        double dx = tile.x + tile.width / 2.0 - likelyX;
+        double dy = tile.y + tile.height / 2.0 - likelyY;
+        return dx * dx + dy * dy;
+      }));
+      double wantedScore = findInput.getScore();
+      int tileCount = 0;
+      for (Rect tile : tiles) {
+        tileCount++;
+        Rect whereTile = new Rect(tile.x, tile.y, tile.width + mTarget.cols() - 1, tile.height + mTarget.rows() - 1);
+        Mat mTileResult = doFindMatch(mTarget, mBase.submat(whereTile), findInput);
+        if (Core.minMaxLoc(mTileResult).maxVal > wantedScore) {
+          log.trace("doFindFirstHit: hit in tile %d of %d", tileCount, tiles.size());
+          return new FindResult2(mTileResult, findInput, new int[]{tile.x, tile.y});
+        }
+        MatPool.put(mTileResult);
+      }
+      return null;
+    }
+
+    private List<Point> getDownsizedCandidates(Mat mDownResult, double minScore, int maxCandidates,
+                                               int targetW, int targetH) {
+      List<Point> candidates = new ArrayList<>();
+      int marginX = Math.max(1, targetW / 2);
+      int marginY = Math.max(1, targetH / 2);
+      while (candidates.size() < maxCandidates) {
+        Core.MinMaxLocResult minMax = Core.minMaxLoc(mDownResult);
+        if (minMax.maxVal < minScore) {
+          break;
+        }
+        int x = (int) minMax.maxLoc.x;
+        int y = (int) minMax.maxLoc.y;
+        candidates.add(minMax.maxLoc);
+        Range rangeX = new Range(Math.max(x - marginX, 0), Math.min(x + marginX + 1, mDownResult.cols()));
+        Range rangeY = new Range(Math.max(y - marginY, 0), Math.min(y + marginY + 1, mDownResult.rows()));
+        mDownResult.colRange(rangeX).rowRange(rangeY).setTo(new Scalar(0f));
+      }
+      return candidates;
+    }
+
+    private FindResult2 verifyDownsized(FindInput2 findInput, List<Rect> areas, double wantedScore) {
+      Mat bestResult = null;
+      Rect bestArea = null;
+      double bestScore = -1;
+      for (Rect area : areas) {
+        Mat mAreaResult = doFindMatch(findInput.getTarget(), mBase.submat(area), findInput);
+        Core.MinMaxLocResult minMax = Core.minMaxLoc(mAreaResult);
+        if (minMax.maxVal > bestScore) {
+          bestScore = minMax.maxVal;
+          MatPool.put(bestResult);
+          bestResult = mAreaResult;
+          bestArea = area;
+        } else {
+          MatPool.put(mAreaResult);
+        }
+      }
+      log.trace("doFindDownsized: verified: %%%.4f (?%.0f)", bestScore * 100, wantedScore * 100);
+      if (bestScore > wantedScore + Settings.FindDownsizedTolerance) {
+        return new FindResult2(bestResult, findInput, new int[]{bestArea.x, bestArea.y});
+      }
+      MatPool.put(bestResult);
+      return null;
+    }
+
+    private FindResult2 verifyDownsizedAll(FindInput2 findInput, List<Rect> areas, double wantedScore) {
+      Mat mTarget = findInput.getTarget();
+      Mat mAllResult = MatPool.get(mBase.rows() - mTarget.rows() + 1, mBase.cols() - mTarget.cols() + 1,
+              CvType.CV_32FC1);
+      mAllResult.setTo(new Scalar(0));
+      int verified = 0;
+      boolean trusted = true;
+      for (Rect area : areas) {
+        Mat mAreaResult = doFindMatch(mTarget, mBase.submat(area), findInput);
+        double areaScore = Core.minMaxLoc(mAreaResult).maxVal;
+        if (areaScore > wantedScore) {
+          verified++;
+          if (areaScore <= wantedScore + Settings.FindDownsizedTolerance) {
+            // near the threshold: similar matches elsewhere might have been missed
+            trusted = false;
+          }
+        }
+        Mat mAllArea = mAllResult.submat(new Rect(area.x, area.y, mAreaResult.cols(), mAreaResult.rows()));
+        Core.max(mAllArea, mAreaResult, mAllArea);
+        MatPool.put(mAreaResult);
+      }
+      log.trace("doFindDownsized: verified: %d of %d%s", verified, areas.size(), trusted ? "" : " (not trusted)");
+      if (verified > 0 && trusted) {
+        return new FindResult2(mAllResult, findInput);
+      }
+      MatPool.put(mAllResult);
+      return null;
+    }
+
     private Mat doFindMatch(Mat what, Mat where, FindInput2 findInput) {
-      Mat mResult = getNewMat();
+      Mat mResult;
+      if (where.rows() < what.rows() || where.cols() < what.cols()) {
+        mResult = getNewMat();
+      } else {
+        mResult = MatPool.get(where.rows() - what.rows() + 1, where.cols() - what.cols() + 1, CvType.CV_32FC1);
+      }
       if (what.empty()) {
         log.error("doFindMatch: image conversion to cvMat did not work");
       } else {
         Mat mWhere = where;
-        if (findInput.isGray()) {
+        boolean whereGray = findInput.isGray() && where.channels() > 1;
+        if (whereGray) {
+          // not in place: the base might be shared (findAny) or kept (incremental find)
+          mWhere = MatPool.get(where.size(), CvType.CV_8UC1);
           Imgproc.cvtColor(where, mWhere, Imgproc.COLOR_BGR2GRAY);
         }
+        boolean matched;
         if (!findInput.isPlainColor()) {
           if (findInput.hasMask()) {
             Mat mask = findInput.getMask();
-            Imgproc.matchTemplate(mWhere, what, mResult, Imgproc.TM_CCORR_NORMED, mask);
+            matched = matchTemplate(mWhere, what, mResult, Imgproc.TM_CCORR_NORMED, mask);
           } else {
-            Imgproc.matchTemplate(mWhere, what, mResult, Imgproc.TM_CCOEFF_NORMED);
+            matched = matchTemplate(mWhere, what, mResult, Imgproc.TM_CCOEFF_NORMED, null);
           }
         } else {
           Mat wherePlain = mWhere;
           Mat whatPlain = what;
           if (findInput.isBlack()) {
+            // inverted copies: the target might be a prepared one, that is reused
+            wherePlain = MatPool.get(mWhere.size(), mWhere.type());
+            whatPlain = MatPool.get(what.size(), what.type());
             Core.bitwise_not(mWhere, wherePlain);
             Core.bitwise_not(what, whatPlain);
           }
           if (findInput.hasMask()) {
-            Imgproc.matchTemplate(wherePlain, what, mResult, Imgproc.TM_SQDIFF_NORMED, findInput.getMask());
+            matched = matchTemplate(wherePlain, what, mResult, Imgproc.TM_SQDIFF_NORMED, findInput.getMask());
           } else {
-            Imgproc.matchTemplate(wherePlain, whatPlain, mResult, Imgproc.TM_SQDIFF_NORMED);
+            matched = matchTemplate(wherePlain, whatPlain, mResult, Imgproc.TM_SQDIFF_NORMED, null);
           }
-          Core.subtract(Mat.ones(mResult.size(), CvType.CV_32F), mResult, mResult);
+          if (matched) {
+            // 1 - result in place (no extra Mat of ones)
+            mResult.convertTo(mResult, -1, -1.0, 1.0);
+          }
+          if (findInput.isBlack()) {
+            MatPool.put(wherePlain);
+            MatPool.put(whatPlain);
+          }
+        }
+        if (whereGray) {
+          MatPool.put(mWhere);
+        }
+        if (!matched) {
+          MatPool.put(mResult);
+          throw new MatchInterrupted();
         }
       }
       return mResult;
     }
     //</editor-fold>
 
+    //<editor-fold desc="parallel matching">
+    private static final int parallelMinArea = 500000;
+    private static final int parallelMinRows = 64;
+    private static ForkJoinPool parallelPool = null;
+
+    private static synchronized ForkJoinPool getParallelPool() {
+      if (parallelPool == null) {
+        parallelPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+      }
+      return parallelPool;
+    }
+
+    /**
+     * Imgproc.matchTemplate - with Settings.FindParallel large areas are split into horizontal tiles,
+     * that overlap by the target height - 1 and are matched in parallel
+     * directly into the respective rows of the one result (same scores as a single run)
+     *
+     * @return false if interrupted while matching in parallel (the result is not valid)
+     */
+    private static boolean matchTemplate(Mat where, Mat what, Mat result, int method, Mat mask) {
+      int resultRows = where.rows() - what.rows() + 1;
+      int resultCols = where.cols() - what.cols() + 1;
+      int tiles = 1;
+      if (Settings.FindParallel && resultRows > 0 && resultCols > 0
+              && (long) resultRows * resultCols >= parallelMinArea) {
+        tiles = Math.min(Runtime.getRuntime().availableProcessors(), resultRows / parallelMinRows);
+      }
+      if (tiles > 1) {
+        result.create(resultRows, resultCols, CvType.CV_32FC1);
+        List<Callable<Void>> tileRuns = new ArrayList<>();
+        int tileRows = (resultRows + tiles - 1) / tiles;
+        for (int row = 0; row < resultRows; row += tileRows) {
+          int rowEnd = Math.min(row + tileRows, resultRows);
+          Mat whereTile = where.rowRange(row, rowEnd + what.rows() - 1);
+          Mat resultTile = result.rowRange(row, rowEnd);
+          tileRuns.add(() -> {
+            doMatchTemplate(whereTile, what, resultTile, method, mask);
+            return null;
+          });
+        }
+        try {
+          for (Future<Void> tileRun : getParallelPool().invokeAll(tileRuns)) {
+            tileRun.get();
+          }
+          return true;
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          log.error("matchTemplate: parallel: interrupted --- no result");
+          return false;
+        } catch (ExecutionException e) {
+          log.error("matchTemplate: parallel: %s --- trying single", e.getMessage());
+        }
+      }
+      doMatchTemplate(where, what, result, method, mask);
+      return true;
+    }
+
+    private static void doMatchTemplate(Mat where, Mat what, Mat result, int method, Mat mask) {
+      getMatchBackend(where, what, method, mask).match(where, what, result, method, mask);
+    }
+    //</editor-fold>
+
+    //<editor-fold desc="matching backends">
+
+    /**
+     * computes the score map of what in where like Imgproc.matchTemplate
+     */
+    protected interface MatchBackend {
+      void match(Mat where, Mat what, Mat result, int method, Mat mask);
+    }
+
+    protected static final MatchBackend backendOpenCV = (where, what, result, method, mask) -> {
+      if (SX.isNull(mask)) {
+        Imgproc.matchTemplate(where, what, result, method);
+      } else {
+        Imgproc.matchTemplate(where, what, result, method, mask);
+      }
+    };
+
+    protected static final MatchBackend backendDFT = (where, what, result, method, mask) ->
+            matchTemplateDFT(where, what, result);
+
+    /**
+     * the frequency domain backend is used for TM_CCOEFF_NORMED without mask,
+     * if the target has at least Settings.FindDFTMinTargetArea pixels
+     */
+    protected static MatchBackend getMatchBackend(Mat where, Mat what, int method, Mat mask) {
+      if (Settings.FindDFTMinTargetArea > 0 && method == Imgproc.TM_CCOEFF_NORMED && SX.isNull(mask)
+              && where.channels() == what.channels() && what.total() >= Settings.FindDFTMinTargetArea) {
+        return backendDFT;
+      }
+      return backendOpenCV;
+    }
+
+    /**
+     * TM_CCOEFF_NORMED via Core.dft - same scores as Imgproc.matchTemplate:
+     * <br>the cross correlation of the base with the mean free target is computed per channel
+     * in the frequency domain, the normalization uses the window sums from the integral images.
+     * <br>all steps are native Mat operations on pooled Mats (no pixel loops or arrays on the Java side)
+     */
+    private static void matchTemplateDFT(Mat where, Mat what, Mat result) {
+      int rows = where.rows() - what.rows() + 1;
+      int cols = where.cols() - what.cols() + 1;
+      result.create(rows, cols, CvType.CV_32FC1);
+      int tw = what.cols();
+      int th = what.rows();
+      double n = (double) tw * th;
+      Size dftSize = new Size(Core.getOptimalDFTSize(where.cols()), Core.getOptimalDFTSize(where.rows()));
+      List<Mat> whereChannels = new ArrayList<>();
+      List<Mat> whatChannels = new ArrayList<>();
+      Core.split(where, whereChannels);
+      Core.split(what, whatChannels);
+      Mat padded = MatPool.get(dftSize, CvType.CV_32FC1);
+      Mat spectrumWhere = MatPool.get(dftSize, CvType.CV_32FC1);
+      Mat spectrumWhat = MatPool.get(dftSize, CvType.CV_32FC1);
+      Mat corr = MatPool.get(dftSize, CvType.CV_32FC1);
+      Mat sum = MatPool.get(where.rows() + 1, where.cols() + 1, CvType.CV_64FC1);
+      Mat sqsum = MatPool.get(where.rows() + 1, where.cols() + 1, CvType.CV_64FC1);
+      Mat numerator = MatPool.get(rows, cols, CvType.CV_64FC1);
+      Mat wndVar = MatPool.get(rows, cols, CvType.CV_64FC1);
+      Mat wndSum = MatPool.get(rows, cols, CvType.CV_64FC1);
+      Mat wndSqSum = MatPool.get(rows, cols, CvType.CV_64FC1);
+      numerator.setTo(new Scalar(0));
+      wndVar.setTo(new Scalar(0));
+      double templVar = 0;
+      for (int c = 0; c < whereChannels.size(); c++) {
+        MatOfDouble mean = new MatOfDouble();
+        MatOfDouble stdDev = new MatOfDouble();
+        Core.meanStdDev(whatChannels.get(c), mean, stdDev);
+        double meanWhat = mean.toArray()[0];
+        double stdWhat = stdDev.toArray()[0];
+        templVar += stdWhat * stdWhat * n;
+
+        padded.setTo(new Scalar(0));
+        whatChannels.get(c).convertTo(padded.submat(0, th, 0, tw), CvType.CV_32F, 1, -meanWhat);
+        Core.dft(padded, spectrumWhat);
+        padded.setTo(new Scalar(0));
+        whereChannels.get(c).convertTo(padded.submat(0, where.rows(), 0, where.cols()), CvType.CV_32F);
+        Core.dft(padded, spectrumWhere);
+        Core.mulSpectrums(spectrumWhere, spectrumWhat, spectrumWhere, 0, true);
+        Core.idft(spectrumWhere, corr, Core.DFT_SCALE | Core.DFT_REAL_OUTPUT, 0);
+        corr.submat(0, rows, 0, cols).convertTo(wndSum, CvType.CV_64F);
+        Core.add(numerator, wndSum, numerator);
+
+        Imgproc.integral2(whereChannels.get(c), sum, sqsum, CvType.CV_64F, CvType.CV_64F);
+        windowSums(sum, wndSum, rows, cols, tw, th);
+        windowSums(sqsum, wndSqSum, rows, cols, tw, th);
+        // wndVar += wndSqSum - wndSum * wndSum / n
+        Core.multiply(wndSum, wndSum, wndSum, 1 / n);
+        Core.subtract(wndSqSum, wndSum, wndSqSum);
+        Core.add(wndVar, wndSqSum, wndVar);
+      }
+      double templNorm = Math.sqrt(templVar);
+      if (templNorm < Double.MIN_NORMAL) {
+        // plain target: as Imgproc.matchTemplate
+        result.setTo(new Scalar(1));
+      } else {
+        // score = numerator / (sqrt(wndVar) * templNorm), clipped as in Imgproc.matchTemplate:
+        // within 1.125 rounded to +-1, beyond (and 0 / 0) set to 0
+        Mat denominator = wndVar;
+        Core.max(wndVar, new Scalar(0), denominator);
+        Core.sqrt(denominator, denominator);
+        Mat ratio = wndSum;
+        Core.divide(numerator, denominator, ratio, 1 / templNorm);
+        Mat keep = MatPool.get(rows, cols, CvType.CV_8UC1);
+        Core.absdiff(ratio, new Scalar(0), wndSqSum);
+        Core.compare(wndSqSum, new Scalar(1.125), keep, Core.CMP_LT);
+        Core.min(ratio, new Scalar(1), ratio);
+        Core.max(ratio, new Scalar(-1), ratio);
+        result.setTo(new Scalar(0));
+        Mat scores = MatPool.get(rows, cols, CvType.CV_32FC1);
+        ratio.convertTo(scores, CvType.CV_32F);
+        scores.copyTo(result, keep);
+        MatPool.put(scores);
+        MatPool.put(keep);
+      }
+      for (Mat mat : whereChannels) {
+        mat.release();
+      }
+      for (Mat mat : whatChannels) {
+        mat.release();
+      }
+      MatPool.put(padded);
+      MatPool.put(spectrumWhere);
+      MatPool.put(spectrumWhat);
+      MatPool.put(corr);
+      MatPool.put(sum);
+      MatPool.put(sqsum);
+      MatPool.put(numerator);
+      MatPool.put(wndVar);
+      MatPool.put(wndSum);
+      MatPool.put(wndSqSum);
+    }
+
+    /**
+     * the sums of all target sized windows from an integral image
+     * (bottom right - bottom left - top right + top left)
+     */
+    private static void windowSums(Mat integral, Mat sums, int rows, int cols, int tw, int th) {
+      Core.subtract(integral.submat(th, th + rows, tw, tw + cols), integral.submat(th, th + rows, 0, cols), sums);
+      Core.subtract(sums, integral.submat(0, rows, tw, tw + cols), sums);
+      Core.add(sums, integral.submat(0, rows, 0, cols), sums);
+    }
+    //</editor-fold>
+
+    //<editor-fold desc="incremental find">
+    private static final double incrementalMaxChanged = 0.5;
+    private static final int incrementalMaxAreas = 64;
+
+    /**
+     * the base and the full score map of the previous search of a repeating Finder
+     */
+    protected static class FindState {
+      private Mat base = null;
+      private Mat result = null;
+      private Mat target = null;
+
+      private boolean isValidFor(Mat mBase, Mat mTarget) {
+        return SX.isNotNull(base) && target == mTarget
+                && base.size().equals(mBase.size()) && base.type() == mBase.type();
+      }
+
+      protected void release() {
+        MatPool.put(base);
+        MatPool.put(result);
+        base = null;
+        result = null;
+        target = null;
+      }
+    }
+
+    /**
+     * repeated search (wait, waitVanish, exists with timeout, repeated findAll):
+     * <br>only the areas changed since the previous search (expanded by the target size)
+     * are searched again, the scores of the other places are taken from the previous search.
+     *
+     * @param findInput the find input with the new base
+     * @param state the state of the previous search (updated)
+     * @return the result or null (not found)
+     */
+    protected static FindResult2 findIncremental(FindInput2 findInput, FindState state) {
+      findInput.setAttributes();
+      if (!findInput.isValid() || findInput.isText()) {
+        state.release();
+        return find(findInput);
+      }
+      Finder2 finder2 = new Finder2();
+      finder2.fInput = findInput;
+      try {
+        return finder2.doFindIncremental(state);
+      } catch (MatchInterrupted e) {
+        // the kept scores might be partly updated
+        state.release();
+        log.trace("findIncremental: interrupted --- not found");
+        return null;
+      }
+    }
+
+    private FindResult2 doFindIncremental(FindState state) {
+      FindInput2 findInput = fInput;
+      long begin_find = new Date().getTime();
+      mBase = findInput.getBase();
+      Mat mTarget = findInput.getTarget();
+      if (mBase.rows() < mTarget.rows() || mBase.cols() < mTarget.cols()) {
+        state.release();
+        return null;
+      }
+      int resultRows = mBase.rows() - mTarget.rows() + 1;
+      int resultCols = mBase.cols() - mTarget.cols() + 1;
+      List<Rect> areas = null;
+      if (state.isValidFor(mBase, mTarget)) {
+        areas = getChangedResultAreas(state.base, mBase, mTarget.size(), resultCols, resultRows);
+      }
+      if (SX.isNull(areas)) {
+        state.release();
+        state.result = doFindMatch(mTarget, mBase, findInput);
+        state.base = MatPool.get(mBase.size(), mBase.type());
+        mBase.copyTo(state.base);
+        log.trace("doFindIncremental: full search %d msec", new Date().getTime() - begin_find);
+      } else {
+        for (Rect area : areas) {
+          Rect whereArea = new Rect(area.x, area.y,
+                  area.width + mTarget.cols() - 1, area.height + mTarget.rows() - 1);
+          Mat mAreaResult = doFindMatch(mTarget, mBase.submat(whereArea), findInput);
+          mAreaResult.copyTo(state.result.submat(area));
+          MatPool.put(mAreaResult);
+          // the base is only renewed where the scores are renewed
+          mBase.submat(whereArea).copyTo(state.base.submat(whereArea));
+        }
+        log.trace("doFindIncremental: %d changed areas %d msec", areas.size(), new Date().getTime() - begin_find);
+      }
+      state.target = mTarget;
+      // the result is changed while iterating the matches - the state keeps its own
+      mResult = MatPool.get(state.result.size(), state.result.type());
+      state.result.copyTo(mResult);
+      FindResult2 findResult = null;
+      if (findInput.isFindAll() || Core.minMaxLoc(mResult).maxVal > findInput.getScore()) {
+        findResult = new FindResult2(mResult, findInput);
+      } else {
+        MatPool.put(mResult);
+      }
+      mResult = null;
+      return findResult;
+    }
+
+    /**
+     * @return the areas in the score map, that have to be evaluated again (merged if overlapping)
+     * <br>null if too much has changed (full search is cheaper)
+     */
+    private static List<Rect> getChangedResultAreas(Mat previous, Mat next, Size targetSize,
+                                                    int resultCols, int resultRows) {
+      int tw = (int) targetSize.width;
+      int th = (int) targetSize.height;
+      List<Rect> changes = detectChangesExact(previous, next);
+      if (changes.size() > incrementalMaxAreas) {
+        return null;
+      }
+      List<Rect> areas = new ArrayList<>();
+      for (Rect changed : changes) {
+        // every target position overlapping the changed pixels
+        int x1 = Math.max(0, changed.x - tw + 1);
+        int y1 = Math.max(0, changed.y - th + 1);
+        int x2 = Math.min(resultCols, changed.x + changed.width);
+        int y2 = Math.min(resultRows, changed.y + changed.height);
+        if (x2 > x1 && y2 > y1) {
+          areas.add(new Rect(x1, y1, x2 - x1, y2 - y1));
+        }
+      }
+      boolean merged = true;
+      while (merged) {
+        merged = false;
+        for (int n = 0; n < areas.size() && !merged; n++) {
+          for (int m = n + 1; m < areas.size(); m++) {
+            Rect a = areas.get(n);
+            Rect b = areas.get(m);
+            if (a.x < b.x + b.width && b.x < a.x + a.width && a.y < b.y + b.height && b.y < a.y + a.height) {
+              int x1 = Math.min(a.x, b.x);
+              int y1 = Math.min(a.y, b.y);
+              int x2 = Math.max(a.x + a.width, b.x + b.width);
+              int y2 = Math.max(a.y + a.height, b.y + b.height);
+              areas.set(n, new Rect(x1, y1, x2 - x1, y2 - y1));
+              areas.remove(m);
+              merged = true;
+              break;
+            }
+          }
+        }
+      }
+      long changedArea = 0;
+      for (Rect area : areas) {
+        changedArea += (long) area.width * area.height;
+      }
+      if (changedArea > incrementalMaxChanged * resultCols * resultRows) {
+        return null;
+      }
+      return areas;
+    }
+    //</editor-fold>
+
     //<editor-fold desc="detect changes">
     private static int toGray = Imgproc.COLOR_BGR2GRAY;
     private static int toColor = Imgproc.COLOR_GRAY2BGR;
@@ -947,15 +1635,20 @@ public class Finder implements Iterator<Match> {
 
     public static List<Region> findChanges(FindInput2 findInput) {
       findInput.setAttributes();
+      return detectChanges(findInput.getBase(), findInput.getTarget());
+    }
+
+    private static List<Region> detectChanges(Mat previous, Mat next) {
       int PIXEL_DIFF_THRESHOLD = 3;
       int IMAGE_DIFF_THRESHOLD = 5;
-      Mat previousGray = getNewMat();
-      Mat nextGray = getNewMat();
-      Mat mDiffAbs = getNewMat();
-      Mat mDiffTresh = getNewMat();
-
-      Imgproc.cvtColor(findInput.getBase(), previousGray, toGray);
-      Imgproc.cvtColor(findInput.getTarget(), nextGray, toGray);
+      Size size = previous.size();
+      Mat previousGray = MatPool.get(size, gray);
+      Mat nextGray = MatPool.get(size, gray);
+      Mat mDiffAbs = MatPool.get(size, gray);
+      Mat mDiffTresh = MatPool.get(size, gray);
+
+      Imgproc.cvtColor(previous, previousGray, toGray);
+      Imgproc.cvtColor(next, nextGray, toGray);
       Core.absdiff(previousGray, nextGray, mDiffAbs);
       Imgproc.threshold(mDiffAbs, mDiffTresh, PIXEL_DIFF_THRESHOLD, 0.0, Imgproc.THRESH_TOZERO);
 
@@ -970,23 +1663,69 @@ public class Finder implements Iterator<Match> {
         Mat mHierarchy = getNewMat();
         Imgproc.findContours(mDiffAbs, contours, mHierarchy, Imgproc.RETR_LIST, Imgproc.CHAIN_APPROX_SIMPLE);
         rectangles = contoursToRectangle(contours);
+        mHierarchy.release();
 
         //Core.subtract(mDiffAbs, mDiffAbs, mChanges);
         //Imgproc.drawContours(mChanges, contours, -1, new Scalar(255));
         //logShow(mDiffAbs);
       }
+      MatPool.put(previousGray);
+      MatPool.put(nextGray);
+      MatPool.put(mDiffAbs);
+      MatPool.put(mDiffTresh);
+      return rectangles;
+    }
+
+    /**
+     * the changed places between two images of same size and type for the incremental find:
+     * <br>other than detectChanges (observe) there are no thresholds - every pixel differing
+     * in any channel is inside one of the returned rectangles (bounding boxes of the changes,
+     * in pixels of the images - no screen involved)
+     */
+    private static List<Rect> detectChangesExact(Mat previous, Mat next) {
+      Mat mDiff = MatPool.get(previous.size(), previous.type());
+      Mat mChanged = MatPool.get(previous.size(), gray);
+      Core.absdiff(previous, next, mDiff);
+      if (mDiff.channels() > 1) {
+        // max over the channels of each pixel
+        Mat mDiffMax = getNewMat();
+        Core.reduce(mDiff.reshape(1, (int) mDiff.total()), mDiffMax, 1, Core.REDUCE_MAX);
+        mDiffMax.reshape(1, mDiff.rows()).copyTo(mChanged);
+        mDiffMax.release();
+      } else {
+        mDiff.copyTo(mChanged);
+      }
+      List<Rect> rectangles = new ArrayList<>();
+      if (Core.countNonZero(mChanged) > 0) {
+        Imgproc.threshold(mChanged, mChanged, 0, 255, Imgproc.THRESH_BINARY);
+        List<MatOfPoint> contours = new ArrayList<MatOfPoint>();
+        Mat mHierarchy = getNewMat();
+        Imgproc.findContours(mChanged, contours, mHierarchy, Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_SIMPLE);
+        for (MatOfPoint contour : contours) {
+          rectangles.add(Imgproc.boundingRect(contour));
+          contour.release();
+        }
+        mHierarchy.release();
+      }
+      MatPool.put(mDiff);
+      MatPool.put(mChanged);
       return rectangles;
     }
 
     public static double findDiffPercentage(FindInput2 findInput) {
-      Mat previousGray = getNewMat();
-      Mat nextGray = getNewMat();
-      Mat mDiffAbs = getNewMat();
+      Size size = findInput.getBase().size();
+      Mat previousGray = MatPool.get(size, gray);
+      Mat nextGray = MatPool.get(size, gray);
+      Mat mDiffAbs = MatPool.get(size, gray);
 
       Imgproc.cvtColor(findInput.getBase(), previousGray, toGray);
       Imgproc.cvtColor(findInput.getTarget(), nextGray, toGray);
       Core.absdiff(previousGray, nextGray, mDiffAbs);
-      return (double) Core.countNonZero(mDiffAbs) / (findInput.getBase().cols() * findInput.getBase().rows());
+      double diffPercentage = (double) Core.countNonZero(mDiffAbs) / (size.width * size.height);
+      MatPool.put(previousGray);
+      MatPool.put(nextGray);
+      MatPool.put(mDiffAbs);
+      return diffPercentage;
     }
 
     public static List<Region> contoursToRectangle(List<MatOfPoint> contours) {
@@ -1014,6 +1753,106 @@ public class Finder implements Iterator<Match> {
     }
     //</editor-fold>
 
+    //<editor-fold desc="Mat pool">
+    /**
+     * one pool of Mats keyed by rows, columns and type (shared by all threads, at most maxBytes)
+     * <br>used for result, gray conversion and scratch Mats in the find pipeline:
+     * get(...) returns a pooled Mat of the wanted size/type or a new one,
+     * put(...) gives it back - what does not fit into the pool is released at once,
+     * so native memory does not depend on GC finalization
+     */
+    public static class MatPool {
+
+      private static final int maxPerSize = 4;
+      private static final long maxBytes = 128 * 1024 * 1024;
+
+      private static final Map<Long, Deque<Mat>> mats = new HashMap<>();
+      private static long bytes = 0;
+
+      private MatPool() {
+      }
+
+      private static long key(int rows, int cols, int type) {
+        return ((long) rows << 40) | ((long) cols << 16) | type;
+      }
+
+      private static long bytes(Mat mat) {
+        return mat.total() * mat.elemSize();
+      }
+
+      public static Mat get(Size size, int type) {
+        return get((int) size.height, (int) size.width, type);
+      }
+
+      public static Mat get(int rows, int cols, int type) {
+        synchronized (mats) {
+          Deque<Mat> sameSize = mats.get(key(rows, cols, type));
+          if (SX.isNotNull(sameSize) && !sameSize.isEmpty()) {
+            Mat mat = sameSize.pop();
+            bytes -= bytes(mat);
+            return mat;
+          }
+        }
+        return new Mat(rows, cols, type);
+      }
+
+      public static void put(Mat mat) {
+        if (SX.isNull(mat)) {
+          return;
+        }
+        if (mat.empty() || mat.isSubmatrix()) {
+          mat.release();
+          return;
+        }
+        long key = key(mat.rows(), mat.cols(), mat.type());
+        long matBytes = bytes(mat);
+        synchronized (mats) {
+          Deque<Mat> sameSize = mats.get(key);
+          if (SX.isNull(sameSize)) {
+            sameSize = new ArrayDeque<>();
+            mats.put(key, sameSize);
+          }
+          for (Mat pooled : sameSize) {
+            if (pooled == mat) {
+              return;
+            }
+          }
+          if (sameSize.size() < maxPerSize && bytes + matBytes <= maxBytes) {
+            sameSize.push(mat);
+            bytes += matBytes;
+            return;
+          }
+        }
+        mat.release();
+      }
+
+      /**
+       * releases all pooled Mats (of all threads - done with Image.reset, not per find:
+       * a Finder only gives back its own Mats with destroy)
+       */
+      public static void clear() {
+        synchronized (mats) {
+          for (Deque<Mat> sameSize : mats.values()) {
+            for (Mat mat : sameSize) {
+              mat.release();
+            }
+          }
+          mats.clear();
+          bytes = 0;
+        }
+      }
+
+      /**
+       * @return bytes held by the pooled Mats
+       */
+      public static long getBytes() {
+        synchronized (mats) {
+          return bytes;
+        }
+      }
+    }
+    //</editor-fold>
+
     //<editor-fold desc="OpenCV Mat">
     public static boolean isOpaque(BufferedImage bImg) {
       if (bImg.getType() == BufferedImage.TYPE_4BYTE_ABGR) {
@@ -1042,9 +1881,13 @@ public class Finder implements Iterator<Match> {
     }
 
     public static Mat makeMat(BufferedImage bImg, boolean asBGR) {
-      if (bImg.getType() == BufferedImage.TYPE_INT_RGB) {
+      if (bImg.getType() == BufferedImage.TYPE_INT_RGB && isLittleEndian) {
         log.trace("makeMat: INT_RGB (%dx%d)", bImg.getWidth(), bImg.getHeight());
-        int[] data = ((DataBufferInt) bImg.getRaster().getDataBuffer()).getData();
+        return makeMatFromIntRGB(bImg);
+      } else if (bImg.getType() == BufferedImage.TYPE_INT_RGB) {
+        log.trace("makeMat: INT_RGB (%dx%d) big endian", bImg.getWidth(), bImg.getHeight());
+        // getRGB honors the offsets of a subimage sharing the DataBuffer
+        int[] data = bImg.getRGB(0, 0, bImg.getWidth(), bImg.getHeight(), null, 0, bImg.getWidth());
         ByteBuffer byteBuffer = ByteBuffer.allocate(data.length * 4);
         IntBuffer intBuffer = byteBuffer.asIntBuffer();
         intBuffer.put(data);
@@ -1063,6 +1906,13 @@ public class Finder implements Iterator<Match> {
         Mat aMatBGR = new Mat(bImg.getHeight(), bImg.getWidth(), CvType.CV_8UC3);
         aMatBGR.put(0, 0, data);
         return aMatBGR;
+      } else if (bImg.getType() == BufferedImage.TYPE_BYTE_INDEXED
+              && bImg.getColorModel().getPixelSize() == 8
+              && bImg.getRaster().getDataBuffer() instanceof DataBufferByte
+              && bImg.getRaster().getSampleModel() instanceof PixelInterleavedSampleModel
+              && bImg.getColorModel().getTransparency() == Transparency.OPAQUE) {
+        log.trace("makeMat: BYTE_INDEXED (%dx%d)", bImg.getWidth(), bImg.getHeight());
+        return makeMatFromIndexed(bImg);
       } else if (bImg.getType() == BufferedImage.TYPE_BYTE_INDEXED
                   || bImg.getType() == BufferedImage.TYPE_BYTE_BINARY) {
         String bImgType = "BYTE_BINARY";
@@ -1113,6 +1963,82 @@ public class Finder implements Iterator<Match> {
       return getNewMat();
     }
 
+    private static final boolean isLittleEndian = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+
+    /**
+     * TYPE_INT_RGB (e.g. java.awt.Robot screen capture):
+     * <br>on little endian machines an int pixel 0x00RRGGBB is stored as B G R 0 - which is BGRA for OpenCV.
+     * <br>so the pixels are written directly into the native memory of a pooled CV_8UC4 Mat
+     * and then converted to BGR natively (no Java side pixel loop and no intermediate Java array).
+     * <br>subimages (shared DataBuffer) are written row by row according to the raster's offsets.
+     * <br>these are two passes over the pixels (copy + cvtColor) - see org.sikuli.util.MakeMatBenchmark
+     */
+    private static Mat makeMatFromIntRGB(BufferedImage bImg) {
+      int width = bImg.getWidth();
+      int height = bImg.getHeight();
+      WritableRaster raster = bImg.getRaster();
+      DataBufferInt dataBuffer = (DataBufferInt) raster.getDataBuffer();
+      SinglePixelPackedSampleModel sampleModel = (SinglePixelPackedSampleModel) raster.getSampleModel();
+      int[] data = dataBuffer.getData();
+      int stride = sampleModel.getScanlineStride();
+      int offset = dataBuffer.getOffset() + sampleModel.getOffset(
+              -raster.getSampleModelTranslateX(), -raster.getSampleModelTranslateY());
+      Mat mBGRA = MatPool.get(height, width, CvType.CV_8UC4);
+      Pointer pBGRA = new Pointer(mBGRA.dataAddr());
+      if (stride == width) {
+        pBGRA.write(0, data, offset, width * height);
+      } else {
+        for (int row = 0; row < height; row++) {
+          pBGRA.write(4L * row * width, data, offset + row * stride, width);
+        }
+      }
+      Mat mBGR = new Mat(height, width, CvType.CV_8UC3);
+      Imgproc.cvtColor(mBGRA, mBGR, Imgproc.COLOR_BGRA2BGR);
+      MatPool.put(mBGRA);
+      return mBGR;
+    }
+
+    /**
+     * TYPE_BYTE_INDEXED (8 bit, opaque palette): the indices are put into a Mat
+     * and then mapped natively to BGR using the color palette as lookup table (no redraw).
+     * <br>palettes with alpha take the redraw path, that composites onto black.
+     */
+    private static Mat makeMatFromIndexed(BufferedImage bImg) {
+      int width = bImg.getWidth();
+      int height = bImg.getHeight();
+      WritableRaster raster = bImg.getRaster();
+      DataBufferByte dataBuffer = (DataBufferByte) raster.getDataBuffer();
+      PixelInterleavedSampleModel sampleModel = (PixelInterleavedSampleModel) raster.getSampleModel();
+      byte[] data = dataBuffer.getData();
+      int stride = sampleModel.getScanlineStride();
+      int offset = dataBuffer.getOffset() + sampleModel.getOffset(
+              -raster.getSampleModelTranslateX(), -raster.getSampleModelTranslateY());
+      Mat mIndex = MatPool.get(height, width, CvType.CV_8UC1);
+      if (stride == width && offset == 0 && data.length == width * height) {
+        mIndex.put(0, 0, data);
+      } else {
+        Pointer pIndex = new Pointer(mIndex.dataAddr());
+        for (int row = 0; row < height; row++) {
+          pIndex.write((long) row * width, data, offset + row * stride, width);
+        }
+      }
+      IndexColorModel colorModel = (IndexColorModel) bImg.getColorModel();
+      byte[] palette = new byte[256 * 3];
+      for (int n = 0; n < colorModel.getMapSize(); n++) {
+        palette[3 * n] = (byte) colorModel.getBlue(n);
+        palette[3 * n + 1] = (byte) colorModel.getGreen(n);
+        palette[3 * n + 2] = (byte) colorModel.getRed(n);
+      }
+      Mat mLut = new Mat(1, 256, CvType.CV_8UC3);
+      mLut.put(0, 0, palette);
+      Mat mBGR = new Mat(height, width, CvType.CV_8UC3);
+      Imgproc.cvtColor(mIndex, mBGR, Imgproc.COLOR_GRAY2BGR);
+      Core.LUT(mBGR, mLut, mBGR);
+      MatPool.put(mIndex);
+      mLut.release();
+      return mBGR;
+    }
+
     public static Mat makeMat() {
       return getNewMat();
     }
@@ -1255,6 +2181,26 @@ public class Finder implements Iterator<Match> {
       this.where = where;
     }
 
+    private int likelyX = -1;
+    private int likelyY = -1;
+
+    /**
+     * where the target most likely is (e.g. last seen) - topleft relative to the base
+     * <br>(-1, -1) means unknown
+     */
+    public void setLikelyPosition(int x, int y) {
+      likelyX = x;
+      likelyY = y;
+    }
+
+    public boolean hasLikelyPosition() {
+      return likelyX > -1 && likelyY > -1;
+    }
+
+    public int[] getLikelyPosition() {
+      return new int[]{likelyX, likelyY};
+    }
+
     public Region getWhere() {
       return where;
     }
@@ -1271,6 +2217,38 @@ public class Finder implements Iterator<Match> {
 
     public void setTarget(Mat target) {
       this.target = target;
+      attributesSet = false;
+      preparedImage = null;
+    }
+
+    private boolean attributesSet = false;
+    private Image preparedImage = null;
+    private String preparedKey = null;
+    private Mat preparedMask = null;
+
+    /**
+     * after setAttributes the prepared target is stored with the given image for reuse
+     */
+    protected void setPreparedFor(Image img, String key, Mat patternMask) {
+      preparedImage = img;
+      preparedKey = key;
+      preparedMask = patternMask;
+    }
+
+    protected void setPrepared(PreparedTarget prepared) {
+      target = PreparedTarget.share(prepared.target);
+      targetBGR = prepared.targetBGR == prepared.target ? target : PreparedTarget.share(prepared.targetBGR);
+      mask = PreparedTarget.share(prepared.mask);
+      grayColor = prepared.grayColor;
+      plainColor = prepared.plainColor;
+      blackColor = prepared.blackColor;
+      whiteColor = prepared.whiteColor;
+      resizeFactor = prepared.resizeFactor;
+      meanColor = prepared.meanColor;
+      targetStdDev = prepared.targetStdDev;
+      targetMean = prepared.targetMean;
+      attributesSet = true;
+      preparedImage = null;
     }
 
     public Mat getTarget() {
@@ -1353,7 +2331,7 @@ public class Finder implements Iterator<Match> {
     }
 
     public boolean shouldSearchDownsized(float resizeMinFactor) {
-      return !hasMask() && !isExact() && !isFindAll() && getResizeFactor() > resizeMinFactor;
+      return !hasMask() && !isExact() && !isPlainColor() && getResizeFactor() > resizeMinFactor;
     }
 
     private double scoreMaxDiff = 0.05;
@@ -1416,7 +2394,7 @@ public class Finder implements Iterator<Match> {
     double targetMean = -1;
 
     public void setAttributes() {
-      if (targetTypeText) {
+      if (targetTypeText || attributesSet) {
         return;
       }
       List<Mat> mats = Finder2.extractMask(target, true);
@@ -1467,6 +2445,11 @@ public class Finder implements Iterator<Match> {
       if (meanColor.length > 1) {
         whiteColor = isMeanColorEqual(Color.WHITE);
       }
+      attributesSet = true;
+      if (SX.isNotNull(preparedImage)) {
+        preparedImage.setPreparedTarget(preparedKey, new PreparedTarget(this, preparedMask));
+        preparedImage = null;
+      }
     }
 
     public String toString() {
@@ -1479,6 +2462,80 @@ public class Finder implements Iterator<Match> {
     }
   }
 
+  /**
+   * a find target as prepared by FindInput2.setAttributes (Mat, mask and attributes)
+   * <br>kept with the Image for reuse, as long as the image is in the cache (see Image.getPreparedTarget)
+   */
+  public static class PreparedTarget {
+
+    private final Mat target;
+    private final Mat targetBGR;
+    private final Mat mask;
+    private final Mat patternMask;
+    private final boolean grayColor;
+    private final boolean plainColor;
+    private final boolean blackColor;
+    private final boolean whiteColor;
+    private final double resizeFactor;
+    private final int[] meanColor;
+    private final double targetStdDev;
+    private final double targetMean;
+
+    private PreparedTarget(FindInput2 findInput, Mat patternMask) {
+      target = share(findInput.target);
+      targetBGR = findInput.targetBGR == findInput.target ? target : share(findInput.targetBGR);
+      mask = share(findInput.mask);
+      this.patternMask = patternMask;
+      grayColor = findInput.grayColor;
+      plainColor = findInput.plainColor;
+      blackColor = findInput.blackColor;
+      whiteColor = findInput.whiteColor;
+      resizeFactor = findInput.resizeFactor;
+      meanColor = findInput.meanColor;
+      targetStdDev = findInput.targetStdDev;
+      targetMean = findInput.targetMean;
+    }
+
+    /**
+     * @param patternMask the Pattern's mask or null
+     * @return true if prepared with this mask
+     */
+    protected boolean isFor(Mat patternMask) {
+      return this.patternMask == patternMask;
+    }
+
+    /**
+     * a new Mat header on the same pixels (reference counted natively),
+     * so releasing the prepared target does not affect a running find and vice versa
+     */
+    private static Mat share(Mat mat) {
+      if (SX.isNull(mat) || mat.empty()) {
+        return new Mat();
+      }
+      return new Mat(mat, Range.all());
+    }
+
+    /**
+     * @return the bytes of the Mats (counted in the image cache memory)
+     */
+    protected long getBytes() {
+      long bytes = targetBGR.total() * targetBGR.elemSize() + mask.total() * mask.elemSize();
+      if (target != targetBGR) {
+        bytes += target.total() * target.elemSize();
+      }
+      return bytes;
+    }
+
+    /**
+     * releases the Mats (a find using this target keeps its own reference)
+     */
+    protected void release() {
+      target.release();
+      targetBGR.release();
+      mask.release();
+    }
+  }
+
   public static class FindResult2 implements Iterator<Match> {
 
     private FindInput2 findInput = null;
@@ -1524,6 +2581,11 @@ public class Finder implements Iterator<Match> {
     private int marginX = -1;
     private int marginY = -1;
 
+    private boolean currentChecked = false;
+    private boolean currentIsMatch = false;
+    private List<double[]> peaks = null;
+    private int peakIndex = 0;
+
     public boolean hasNext() {
       if (findInput.isText()) {
         if (words.size() > 0) {
@@ -1531,12 +2593,10 @@ public class Finder implements Iterator<Match> {
         }
         return false;
       }
-      resultMinMax = Core.minMaxLoc(result);
-      currentScore = resultMinMax.maxVal;
-      currentX = (int) resultMinMax.maxLoc.x;
-      currentY = (int) resultMinMax.maxLoc.y;
-      if (lastScore < 0) {
-        lastScore = currentScore;
+      if (currentChecked) {
+        return currentIsMatch;
+      }
+      if (targetScore < 0) {
         targetScore = findInput.getScore();
         baseW = result.width();
         baseH = result.height();
@@ -1546,6 +2606,14 @@ public class Finder implements Iterator<Match> {
         marginY = (int) (targetH * 0.8);
         matchCount = 0;
       }
+      if (findInput.isFindAll()) {
+        nextPeak();
+      } else {
+        nextMax();
+      }
+      if (lastScore < 0) {
+        lastScore = currentScore;
+      }
       boolean isMatch = false;
       if (currentScore > targetScore) {
         if (matchCount == 0) {
@@ -1564,9 +2632,83 @@ public class Finder implements Iterator<Match> {
           Debug.log(3, "findAll: (%d) stop: %.4f (%.4f) %s", matchCount, currentScore, scoreMeanDiff, findInput);
         }
       }
+      currentIsMatch = isMatch;
+      currentChecked = true;
       return isMatch;
     }
 
+    private void nextMax() {
+      resultMinMax = Core.minMaxLoc(result);
+      currentScore = resultMinMax.maxVal;
+      currentX = (int) resultMinMax.maxLoc.x;
+      currentY = (int) resultMinMax.maxLoc.y;
+    }
+
+    private void nextPeak() {
+      if (peaks == null) {
+        peaks = extractPeaks();
+      }
+      if (peakIndex < peaks.size()) {
+        double[] peak = peaks.get(peakIndex);
+        currentScore = peak[0];
+        currentX = (int) peak[1];
+        currentY = (int) peak[2];
+      } else {
+        currentScore = -1;
+      }
+    }
+
+    /**
+     * findAll: collects all local maxima above the wanted score in one pass over the result,
+     * sorted by score (best first) and purged like single matches would be (margin around a better match)
+     *
+     * @return list of {score, x, y}
+     */
+    private List<double[]> extractPeaks() {
+      List<double[]> candidates = new ArrayList<>();
+      Mat mScratch = Finder2.MatPool.get(result.rows(), result.cols(), result.type());
+      Mat mPeaks = Finder2.MatPool.get(result.rows(), result.cols(), CvType.CV_8UC1);
+      Mat mAbove = Finder2.MatPool.get(result.rows(), result.cols(), CvType.CV_8UC1);
+      Imgproc.dilate(result, mScratch, Imgproc.getStructuringElement(Imgproc.MORPH_RECT, new Size(3, 3)));
+      Core.compare(result, mScratch, mPeaks, Core.CMP_GE);
+      Imgproc.threshold(result, mScratch, targetScore, 255, Imgproc.THRESH_BINARY);
+      mScratch.convertTo(mAbove, CvType.CV_8U);
+      Core.bitwise_and(mPeaks, mAbove, mPeaks);
+      MatOfPoint points = new MatOfPoint();
+      Core.findNonZero(mPeaks, points);
+      if (!points.empty()) {
+        for (Point point : points.toArray()) {
+          candidates.add(new double[]{result.get((int) point.y, (int) point.x)[0], point.x, point.y});
+        }
+      }
+      points.release();
+      Finder2.MatPool.put(mScratch);
+      Finder2.MatPool.put(mPeaks);
+      Finder2.MatPool.put(mAbove);
+      Collections.sort(candidates, new Comparator<double[]>() {
+        @Override
+        public int compare(double[] p1, double[] p2) {
+          return Double.compare(p2[0], p1[0]);
+        }
+      });
+      List<double[]> selected = new ArrayList<>();
+      for (double[] candidate : candidates) {
+        boolean purged = false;
+        for (double[] peak : selected) {
+          if (candidate[1] >= peak[1] - marginX && candidate[1] < peak[1] + marginX
+                  && candidate[2] >= peak[2] - marginY && candidate[2] < peak[2] + marginY) {
+            purged = true;
+            break;
+          }
+        }
+        if (!purged) {
+          selected.add(candidate);
+        }
+      }
+      Debug.log(3, "findAll: %d peaks (%d candidates) %s", selected.size(), candidates.size(), findInput);
+      return selected;
+    }
+
     public Match next() {
       Match match = null;
       if (hasNext()) {
@@ -1578,10 +2720,15 @@ public class Finder implements Iterator<Match> {
           match = new Match(currentX + offX, currentY + offY, targetW, targetH, currentScore, null);
           matchCount++;
           lastScore = currentScore;
-          //int margin = getPurgeMargin();
-          Range rangeX = new Range(Math.max(currentX - marginX, 0), Math.min(currentX + marginX, result.width()));
-          Range rangeY = new Range(Math.max(currentY - marginY, 0), Math.min(currentY + marginY, result.height()));
-          result.colRange(rangeX).rowRange(rangeY).setTo(new Scalar(0f));
+          currentChecked = false;
+          if (SX.isNotNull(peaks)) {
+            peakIndex++;
+          } else {
+            //int margin = getPurgeMargin();
+            Range rangeX = new Range(Math.max(currentX - marginX, 0), Math.min(currentX + marginX, result.width()));
+            Range rangeY = new Range(Math.max(currentY - marginY, 0), Math.min(currentY + marginY, result.height()));
+            result.colRange(rangeX).rowRange(rangeY).setTo(new Scalar(0f));
+          }
         }
       }
       return match;
@@ -1634,6 +2781,14 @@ public class Finder implements Iterator<Match> {
       return Math.sqrt(stdDev / doubles.size());
     }
 
+    /**
+     * gives the result Mat back to the Mat pool - the result can no longer be used afterwards
+     */
+    public void release() {
+      Finder2.MatPool.put(result);
+      result = null;
+    }
+
     @Override
     public void remove() {
     }
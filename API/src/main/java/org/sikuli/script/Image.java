@@ -17,22 +17,37 @@ import java.awt.image.DataBufferByte;
 import java.awt.image.SampleModel;
 import java.awt.image.WritableRaster;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.AbstractMap;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 
 import org.apache.commons.io.FilenameUtils;
+import org.opencv.core.Mat;
 import org.sikuli.basics.Debug;
 import org.sikuli.basics.FileManager;
 import org.sikuli.basics.Settings;
+import org.sikuli.script.support.HTTPImageCache;
 
 /**
  * This class hides the complexity behind image names given as string.
@@ -66,9 +81,20 @@ public class Image {
     Debug.logx(level, me + message, args);
   }
 
-  private static List<Image> images = Collections.synchronizedList(new ArrayList<Image>());
-  private static Map<URL, Image> imageFiles = Collections.synchronizedMap(new HashMap<URL, Image>());
-  private static Map<String, URL> imageNames = Collections.synchronizedMap(new HashMap<String, URL>());
+  // the cached images (bimg in memory) - a cache hit only sets the image's access stamp (no lock),
+  // adding to and removing from the cache (eviction, purge) is done with Image.class locked
+  private static final Map<Image, Boolean> images = new ConcurrentHashMap<>();
+  private static Map<URL, Image> imageFiles = new ConcurrentHashMap<>();
+  private static Map<String, URL> imageNames = new ConcurrentHashMap<>();
+  // one lock per image URL: an image is only loaded once, when requested by more threads at the same time
+  private static final Map<URL, Object> imageLoadLocks = new ConcurrentHashMap<>();
+
+  private static Object getLoadLock(URL imgURL) {
+    if (imgURL == null) {
+      return new Object();
+    }
+    return imageLoadLocks.computeIfAbsent(imgURL, url -> new Object());
+  }
 
   //<editor-fold desc="00 0  instance">
   public static Image getDefaultInstance4py() {
@@ -282,6 +308,9 @@ public class Image {
   private URL fileURL = null;
 
   private static Image get(URL imgURL) {
+    if (imgURL == null) {
+      return null;
+    }
     return imageFiles.get(imgURL);
   }
 
@@ -337,7 +366,7 @@ public class Image {
     return this;
   }
 
-  private BufferedImage bimg = null;
+  private volatile BufferedImage bimg = null;
   private int bsize = 0;
   private int bwidth = -1;
   private int bheight = -1;
@@ -352,13 +381,16 @@ public class Image {
    * @return BufferedImage (might be null)
    */
   public BufferedImage get() {
-    if (bimg != null) {
+    // bimg might be dropped by the cache at any time
+    BufferedImage bImage = bimg;
+    if (bImage != null) {
       if (fileURL == null) {
         log(lvl + 1, "getImage inMemory: %s", imageName);
       } else {
+        cacheTouch(this);
         log(lvl + 1, "getImage from cache: %s", imageName);
       }
-      return bimg;
+      return bImage;
     } else {
       return load();
     }
@@ -600,9 +632,12 @@ public class Image {
    * @return the image
    */
   public static Image create(URL url) {
-    Image img = get(url);
-    if (img == null) {
-      img = new Image(url);
+    Image img;
+    synchronized (getLoadLock(url)) {
+      img = get(url);
+      if (img == null) {
+        img = new Image(url);
+      }
     }
     return createImageValidate(img);
   }
@@ -671,31 +706,144 @@ public class Image {
   private static final int MB = KB * KB;
   private final static String isBImg = "__BufferedImage__";
 
-  private static long currentMemory = 0;
+  private static final AtomicLong currentMemory = new AtomicLong();
+  private static final AtomicLong accessClock = new AtomicLong();
+  private static final LongAdder cacheHits = new LongAdder();
+  private static final LongAdder cacheMisses = new LongAdder();
+  private static final LongAdder cacheEvictions = new LongAdder();
+
+  // the least recently used images have the lowest stamp
+  private volatile long lastAccess = 0;
+
+  private static void cacheAdd(Image img) {
+    img.lastAccess = accessClock.incrementAndGet();
+    images.put(img, Boolean.TRUE);
+    cacheMisses.increment();
+  }
+
+  private static void cacheTouch(Image img) {
+    if (images.containsKey(img)) {
+      img.lastAccess = accessClock.incrementAndGet();
+      cacheHits.increment();
+    }
+  }
+
+  private final Map<String, Finder.PreparedTarget> preparedTargets = new HashMap<>();
+
+  /**
+   * INTERNAL USE: get the find target prepared before for this image
+   *
+   * @param key resize factor as string
+   * @param patternMask the Pattern's mask or null
+   * @return the prepared target or null
+   */
+  protected synchronized Finder.PreparedTarget getPreparedTarget(String key, Mat patternMask) {
+    Finder.PreparedTarget prepared = preparedTargets.get(key);
+    if (prepared != null && prepared.isFor(patternMask)) {
+      return prepared;
+    }
+    return null;
+  }
+
+  /**
+   * INTERNAL USE: keep the prepared find target with the image as long as the image is cached
+   *
+   * @param key      resize factor as string
+   * @param prepared the prepared target
+   */
+  protected void setPreparedTarget(String key, Finder.PreparedTarget prepared) {
+    synchronized (Image.class) {
+      synchronized (this) {
+        if (bimg == null || fileURL == null || !images.containsKey(this)) {
+          prepared.release();
+          return;
+        }
+        long bytes = prepared.getBytes();
+        Finder.PreparedTarget old = preparedTargets.put(key, prepared);
+        if (old != null) {
+          bytes -= old.getBytes();
+          old.release();
+        }
+        preparedBytes += bytes;
+        currentMemoryChange(bytes, -1);
+      }
+    }
+  }
+
+  private long preparedBytes = 0;
+
+  /**
+   * releases the prepared targets
+   *
+   * @return the bytes they were counted with in the cache memory
+   */
+  private synchronized long clearPreparedTargets() {
+    for (Finder.PreparedTarget prepared : preparedTargets.values()) {
+      prepared.release();
+    }
+    preparedTargets.clear();
+    long bytes = preparedBytes;
+    preparedBytes = 0;
+    return bytes;
+  }
+
+  private void dropPreparedTargets() {
+    long bytes = clearPreparedTargets();
+    if (bytes > 0) {
+      currentMemoryChange(-bytes, -1);
+    }
+  }
 
-  private static synchronized long currentMemoryChange(long size, long max) {
+  /**
+   * @param size bytes added (negative: removed)
+   * @param max  &lt; 0: the cache size (Settings), else: evict down to max (size is ignored)
+   * @return the memory used by the cached images now
+   */
+  private static long currentMemoryChange(long size, long max) {
     long maxMemory = max;
+    long memory;
     if (max < 0) {
-      maxMemory = Settings.getImageCache() * MB;
-      currentMemory += size;
-    }
-    if (currentMemory > maxMemory) {
-      Image first;
-      while (images.size() > 0 && currentMemory > maxMemory) {
-        first = images.remove(0);
-        first.bimg = null;
-        currentMemory -= first.bsize;
-      }
-      if (maxMemory == 0) {
-        currentMemory = 0;
-      } else {
-        currentMemory = Math.max(0, currentMemory);
+      maxMemory = Settings.getImageCache() * (long) MB;
+      memory = currentMemory.addAndGet(size);
+      if (memory < 0) {
+        memory = currentMemory.updateAndGet(current -> Math.max(0, current));
       }
+    } else {
+      memory = currentMemory.get();
+    }
+    if (memory > maxMemory) {
+      memory = evict(maxMemory);
+    }
+    return memory;
+  }
+
+  /**
+   * evicts the least recently used images, until the memory is at most maxMemory
+   * <br>only done with the cache over budget (one thread at a time, the hits are not blocked)
+   */
+  private static synchronized long evict(long maxMemory) {
+    if (currentMemory.get() <= maxMemory) {
+      return currentMemory.get();
+    }
+    // the stamps are taken once, they might change while sorting
+    List<Map.Entry<Image, Long>> leastRecentlyUsed = new ArrayList<>();
+    for (Image img : images.keySet()) {
+      leastRecentlyUsed.add(new AbstractMap.SimpleEntry<>(img, img.lastAccess));
     }
-    if (size < 0) {
-      currentMemory = Math.max(0, currentMemory);
+    leastRecentlyUsed.sort(Map.Entry.comparingByValue());
+    for (Map.Entry<Image, Long> entry : leastRecentlyUsed) {
+      if (currentMemory.get() <= maxMemory) {
+        break;
+      }
+      Image first = entry.getKey();
+      if (images.remove(first) == null) {
+        continue;
+      }
+      first.bimg = null;
+      currentMemory.addAndGet(-(first.bsize + first.clearPreparedTargets()));
+      cacheEvictions.increment();
     }
-    return currentMemory;
+    return currentMemory.updateAndGet(current -> images.isEmpty() ? 0 : Math.max(0, current));
   }
 
   private static long currentMemoryUp(long size) {
@@ -703,8 +851,6 @@ public class Image {
   }
 
   private static long currentMemoryDown(long size) {
-    currentMemory -= size;
-    currentMemory = Math.max(0, currentMemory);
     return currentMemoryChange(-size, -1);
   }
 
@@ -751,15 +897,11 @@ public class Image {
         it.remove();
       }
     }
-    if (!imagePurgeList.isEmpty()) {
-      Iterator<Image> bit = images.iterator();
-      while (bit.hasNext()) {
-        img = bit.next();
-        if (imagePurgeList.contains(img)) {
-          bit.remove();
-          log(lvl + 1, "purge: bimg: %s", img);
-          currentMemoryDown(img.bsize);
-        }
+    for (Image purged : imagePurgeList) {
+      if (images.remove(purged) != null) {
+        purged.dropPreparedTargets();
+        log(lvl + 1, "purge: bimg: %s", purged);
+        currentMemoryDown(purged.bsize);
       }
     }
     for (String name : imageNamePurgeList) {
@@ -767,14 +909,19 @@ public class Image {
     }
   }
 
-  private static void unCache(URL imgURL) {
+  private static synchronized void unCache(URL imgURL) {
+    if (imgURL == null) {
+      return;
+    }
     Image img = imageFiles.get(imgURL);
     if (img == null) {
       return;
     }
-    currentMemoryDown(img.bsize);
+    if (images.remove(img) != null) {
+      currentMemoryDown(img.bsize);
+    }
     img.setBimg(null);
-    images.remove(img);
+    img.dropPreparedTargets();
   }
 
   //TODO make obsolete
@@ -815,13 +962,195 @@ public class Image {
     if (Settings.getImageCache() == 0) {
       log(lvl, "Cache state: switched off!");
     } else {
+      long memory = currentMemory.get();
       log(lvl, "Cache state: Max %d MB (entries: %d  used: %d %% %d KB)",
               Settings.getImageCache(), images.size(),
-              (int) (100 * currentMemory / (Settings.getImageCache() * MB)), (int) (currentMemory / KB));
+              (int) (100 * memory / (Settings.getImageCache() * MB)), (int) (memory / KB));
+      log(lvl, "Cache counters: hits %d misses %d evictions %d",
+              cacheHits.sum(), cacheMisses.sum(), cacheEvictions.sum());
     }
     log(lvl, "--- end of Image dump ---");
   }
 
+  /**
+   * progress of {@link #preload(List, PreloadProgress)}
+   */
+  public interface PreloadProgress {
+    /**
+     * @param image the image just handled (null if not loaded - cache full)
+     * @param done  number of images handled so far
+     * @param total number of images to handle
+     */
+    void progress(Image image, int done, int total);
+  }
+
+  private static long getCurrentMemory() {
+    return currentMemory.get();
+  }
+
+  // memory reserved by running preloads for the images they are loading
+  private static final AtomicLong preloadReserved = new AtomicLong();
+
+  /**
+   * reserves the estimated memory of an image to be preloaded, if it fits into the cache
+   * (together with the cached images and the other reservations)
+   */
+  private static boolean preloadReserve(long bytes) {
+    while (true) {
+      long reserved = preloadReserved.get();
+      if (currentMemory.get() + reserved + bytes > Settings.getImageCache() * (long) MB) {
+        return false;
+      }
+      if (preloadReserved.compareAndSet(reserved, reserved + bytes)) {
+        return true;
+      }
+    }
+  }
+
+  private static void preloadRelease(long bytes) {
+    preloadReserved.updateAndGet(reserved -> Math.max(0, reserved - bytes));
+  }
+
+  /**
+   * @return estimated cache memory of the image and its prepared target from the image file's header
+   * (0 if already cached or not found)
+   */
+  private static long preloadEstimate(String name) {
+    String imageFileName = getValidImageFilename(name);
+    if (imageFileName.isEmpty()) {
+      imageFileName = name;
+    }
+    File imageFile = new File(imageFileName);
+    URL imageURL;
+    if (imageFile.isAbsolute()) {
+      imageURL = FileManager.makeURL(imageFile.getAbsolutePath());
+    } else {
+      imageURL = imageNames.get(imageFileName);
+      if (imageURL == null) {
+        imageURL = ImagePath.find(imageFileName);
+      }
+    }
+    if (imageURL == null) {
+      return 0;
+    }
+    Image image = imageFiles.get(imageURL);
+    if (image != null && image.bimg != null) {
+      return 0;
+    }
+    Object source;
+    try {
+      if (imageURL.getProtocol().startsWith("http")) {
+        source = HTTPImageCache.isActive() ? HTTPImageCache.get(imageURL) : null;
+      } else {
+        source = imageURL.openStream();
+      }
+    } catch (IOException e) {
+      return 0;
+    }
+    if (source == null) {
+      return 0;
+    }
+    try (ImageInputStream input = ImageIO.createImageInputStream(source)) {
+      Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+      if (readers == null || !readers.hasNext()) {
+        return 0;
+      }
+      ImageReader reader = readers.next();
+      try {
+        reader.setInput(input, true, true);
+        // image (up to 4 bytes per pixel) and prepared target (BGR, mask)
+        return 8L * reader.getWidth(0) * reader.getHeight(0);
+      } finally {
+        reader.dispose();
+      }
+    } catch (IOException e) {
+      return 0;
+    } finally {
+      if (source instanceof InputStream) {
+        try {
+          ((InputStream) source).close();
+        } catch (IOException e) {
+        }
+      }
+    }
+  }
+
+  /**
+   * load the given images in parallel into the cache and prepare their find targets,
+   * so the first find with them does not have to
+   * <br>an image is only loaded, if its estimated size (image and prepared target, from the file header)
+   * still fits into the cache (see {@link Settings#setImageCache(int)}) - the size is reserved while loading,
+   * so the parallel loads together do not exceed it.
+   * <br>the estimate might be too low for some image formats: then, as with any load,
+   * the least recently used images are evicted - which may be images preloaded before
+   *
+   * @param names    image names (as used with find) or absolute file names
+   * @param progress called after each image (from the loading threads) or null
+   * @return number of images loaded and prepared
+   */
+  public static int preload(List<String> names, PreloadProgress progress) {
+    if (!isCaching() || names.isEmpty()) {
+      log(lvl, "preload: nothing to do (cache switched off or no images)");
+      return 0;
+    }
+    long start = new Date().getTime();
+    int total = names.size();
+    AtomicInteger done = new AtomicInteger();
+    AtomicInteger prepared = new AtomicInteger();
+    AtomicInteger skipped = new AtomicInteger();
+    int threads = Math.min(total, Runtime.getRuntime().availableProcessors());
+    ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+      Thread thread = new Thread(runnable, "SikuliX-preload");
+      thread.setDaemon(true);
+      return thread;
+    });
+    List<Future<?>> futures = new ArrayList<>();
+    for (String name : names) {
+      futures.add(pool.submit(() -> {
+        Image img = null;
+        long estimate = 0;
+        boolean reserved = false;
+        try {
+          estimate = Math.max(preloadEstimate(name), 1);
+          reserved = preloadReserve(estimate);
+          if (reserved) {
+            img = create(name);
+            if (img.isValid() && Finder.prepareTarget(img)) {
+              prepared.incrementAndGet();
+            }
+          } else {
+            skipped.incrementAndGet();
+          }
+        } catch (Exception e) {
+          log(-1, "preload: %s: %s", name, e.getMessage());
+        } finally {
+          if (reserved) {
+            preloadRelease(estimate);
+          }
+        }
+        int count = done.incrementAndGet();
+        if (progress != null) {
+          progress.progress(img, count, total);
+        }
+      }));
+    }
+    pool.shutdown();
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        pool.shutdownNow();
+        break;
+      } catch (ExecutionException e) {
+        log(-1, "preload: %s", e.getMessage());
+      }
+    }
+    log(lvl, "preload: %d of %d images (%d not loaded - cache full) (%d msec, cache %d KB)",
+            prepared.get(), total, skipped.get(), new Date().getTime() - start, getCurrentMemory() / KB);
+    return prepared.get();
+  }
+
   /**
    * clears all caches (should only be needed for debugging)
    */
@@ -829,6 +1158,7 @@ public class Image {
     clearCache(0);
     imageNames.clear();
     imageFiles.clear();
+    Finder.Finder2.MatPool.clear();
   }
 
   public File remove() {
@@ -914,21 +1244,24 @@ public class Image {
           imageURL = ImagePath.find(imageFileName);
         }
       }
-      if (imageURL != null) {
-        image = imageFiles.get(imageURL);
-        if (image != null && null == imageNames.get(image.imageName)) {
-          imageNames.put(image.imageName, imageURL);
+      synchronized (getLoadLock(imageURL)) {
+        if (imageURL != null) {
+          image = imageFiles.get(imageURL);
+          if (image != null && null == imageNames.get(image.imageName)) {
+            imageNames.put(image.imageName, imageURL);
+          }
         }
-      }
-      if (image == null) {
-        image = new Image(imageFileName, imageURL);
-        image.setIsAbsolute(imageFile.isAbsolute());
-      } else {
-        if (image.bimg != null) {
-          log(3, "reused: %s (%s)", image.imageName, image.fileURL);
+        if (image == null) {
+          image = new Image(imageFileName, imageURL);
+          image.setIsAbsolute(imageFile.isAbsolute());
         } else {
-          if (Settings.getImageCache() > 0) {
-            image.load();
+          if (image.bimg != null) {
+            cacheTouch(image);
+            log(3, "reused: %s (%s)", image.imageName, image.fileURL);
+          } else {
+            if (Settings.getImageCache() > 0) {
+              image.load();
+            }
           }
         }
       }
@@ -937,37 +1270,63 @@ public class Image {
     return image;
   }
 
+  /**
+   * images from http(s) are taken from the local disk cache, if active (see Settings.HTTPImageCacheFolder)
+   */
+  private static BufferedImage readImage(URL url) throws IOException {
+    if (url.getProtocol().startsWith("http") && HTTPImageCache.isActive()) {
+      File cached = HTTPImageCache.get(url);
+      if (cached == null) {
+        throw new IOException("not available: " + url);
+      }
+      return ImageIO.read(cached);
+    }
+    return ImageIO.read(url);
+  }
+
+  /**
+   * loads the image from its URL - only once, if more threads want it at the same time
+   * (checked again with the URL's load lock held)
+   */
   private BufferedImage load() {
     BufferedImage bImage = null;
-    if (fileURL != null) {
-      bimg = null;
-      try {
-        bImage = ImageIO.read(fileURL);
-      } catch (Exception e) {
-        log(-1, "load: failed: %s", fileURL);
-        bHasIOException = true;
-        fileURL = null;
-        return null;
-      }
-      if (imageName != null) {
-        imageFiles.put(fileURL, this);
-        imageNames.put(imageName, fileURL);
-        bwidth = bImage.getWidth();
-        bheight = bImage.getHeight();
-        bsize = bImage.getData().getDataBuffer().getSize();
-        log(lvl, "loaded: %s (%s)", imageName, fileURL);
-        if (isCaching()) {
-          int maxMemory = Settings.getImageCache() * MB;
-          currentMemoryUp(bsize);
-          bimg = bImage;
-          images.add(this);
-          log(lvl, "cached: %s (%d KB) (# %d KB %d -- %d %% of %d MB)",
-                  imageName, getKB(),
-                  images.size(), (int) (currentMemory / KB),
-                  (int) (100 * currentMemory / maxMemory), (int) (maxMemory / MB));
+    URL loadURL = fileURL;
+    if (loadURL != null) {
+      synchronized (getLoadLock(loadURL)) {
+        bImage = bimg;
+        if (bImage != null) {
+          cacheTouch(this);
+          return bImage;
+        }
+        dropPreparedTargets();
+        try {
+          bImage = readImage(fileURL);
+        } catch (Exception e) {
+          log(-1, "load: failed: %s", fileURL);
+          bHasIOException = true;
+          fileURL = null;
+          return null;
+        }
+        if (imageName != null) {
+          imageFiles.put(fileURL, this);
+          imageNames.put(imageName, fileURL);
+          bwidth = bImage.getWidth();
+          bheight = bImage.getHeight();
+          bsize = bImage.getData().getDataBuffer().getSize();
+          log(lvl, "loaded: %s (%s)", imageName, fileURL);
+          if (isCaching()) {
+            int maxMemory = Settings.getImageCache() * MB;
+            currentMemoryUp(bsize);
+            bimg = bImage;
+            cacheAdd(this);
+            log(lvl, "cached: %s (%d KB) (# %d KB %d -- %d %% of %d MB)",
+                    imageName, getKB(),
+                    images.size(), (int) (getCurrentMemory() / KB),
+                    (int) (100 * getCurrentMemory() / maxMemory), (int) (maxMemory / MB));
+          }
+        } else {
+          log(-1, "invalid! not loaded! %s", fileURL);
         }
-      } else {
-        log(-1, "invalid! not loaded! %s", fileURL);
       }
     }
     return bImage;
@@ -977,8 +1336,9 @@ public class Image {
     BufferedImage bImage = null;
     if (fileURL != null) {
       bimg = null;
+      dropPreparedTargets();
       try {
-        bImage = ImageIO.read(fileURL);
+        bImage = readImage(fileURL);
       } catch (Exception e) {
         log(-1, "loadAgain: failed: %s", fileURL);
         bHasIOException = true;
@@ -998,7 +1358,7 @@ public class Image {
   public static void reload(String fpImage) {
 //    URL uImage = FileManager.makeURL(fpImage);
     URL uImage = imageNames.get(fpImage);
-    if (imageFiles.containsKey(uImage)) {
+    if (uImage != null && imageFiles.containsKey(uImage)) {
       Image image = imageFiles.get(uImage);
       int sizeOld = image.bsize;
       if (null != image.loadAgain()) {
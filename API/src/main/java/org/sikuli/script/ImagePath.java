@@ -9,15 +9,31 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.security.CodeSource;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.regex.Matcher;
 
 import org.sikuli.basics.Debug;
 import org.sikuli.basics.FileManager;
 import org.sikuli.basics.Settings;
+import org.sikuli.script.support.HTTPImageCache;
 import org.sikuli.script.support.RunTime;
 
 /**
@@ -127,8 +143,12 @@ public class ImagePath {
       Image.purge(pathEntry);
     }
     PathEntry bundlePath = getBundle();
+    List<PathEntry> removed = new ArrayList<>(imagePaths.subList(1, imagePaths.size()));
     imagePaths.clear();
     imagePaths.add(bundlePath);
+    for (PathEntry pathEntry : removed) {
+      dropIndex(pathEntry);
+    }
   }
   //</editor-fold>
 
@@ -509,6 +529,7 @@ public class ImagePath {
       }
       it.remove();
       Image.purge(pathEntry);
+      dropIndex(pathEntry);
     }
     return true;
   }
@@ -584,6 +605,7 @@ public class ImagePath {
       PathEntry pathEntry = new PathEntry(folder);
       if (pathEntry.isValid()) {
         setBundle(pathEntry);
+        dropIndex(oldBundle);
         log(lvl, "new BundlePath: %s", pathEntry);
         return pathEntry.getFile();
       }
@@ -615,6 +637,248 @@ public class ImagePath {
 
   //</editor-fold>
 
+  //<editor-fold desc="05 preload">
+  /**
+   * preload all images in the bundle folder (see {@link Image#preload(List, Image.PreloadProgress)})
+   *
+   * @param progress called after each image or null
+   * @return number of images loaded and prepared
+   */
+  public static int preload(Image.PreloadProgress progress) {
+    String bundlePath = getBundlePath();
+    if (bundlePath == null) {
+      return 0;
+    }
+    List<String> names = new ArrayList<>();
+    File[] files = new File(bundlePath).listFiles((dir, name) -> name.toLowerCase().endsWith(".png"));
+    if (files != null) {
+      for (File file : files) {
+        names.add(file.getName());
+      }
+    }
+    log(lvl, "preload: bundle %s: %d images", bundlePath, names.size());
+    return Image.preload(names, progress);
+  }
+
+  private static final java.util.regex.Pattern scriptString = java.util.regex.Pattern.compile("\"([^\"\\n]+)\"|'([^'\\n]+)'");
+
+  /**
+   * preload the images referenced by a script: all strings in the script text,
+   * that are the name of an image in the bundle folder (see {@link Image#preload(List, Image.PreloadProgress)})
+   *
+   * @param script   the script file
+   * @param progress called after each image or null
+   * @return number of images loaded and prepared
+   */
+  public static int preload(File script, Image.PreloadProgress progress) {
+    String bundlePath = getBundlePath();
+    String text = FileManager.readFileToString(script);
+    if (bundlePath == null || text == null) {
+      return 0;
+    }
+    Set<String> names = new LinkedHashSet<>();
+    Matcher matcher = scriptString.matcher(text);
+    while (matcher.find()) {
+      String name = matcher.group(1) != null ? matcher.group(1) : matcher.group(2);
+      String imageFileName = Image.getValidImageFilename(name);
+      if (new File(bundlePath, imageFileName).isFile()) {
+        names.add(imageFileName);
+      }
+    }
+    log(lvl, "preload: script %s: %d images", script, names.size());
+    return Image.preload(new ArrayList<>(names), progress);
+  }
+  //</editor-fold>
+
+  //<editor-fold desc="09 index">
+  // folder path -> names of the files in the folder (lower case if the filesystem might ignore case)
+  private static final Map<String, Set<String>> folderIndex = new ConcurrentHashMap<>();
+  // jar path URL -> names of the entries below the path
+  private static final Map<String, Set<String>> jarIndex = new ConcurrentHashMap<>();
+  private static final Map<WatchKey, String> watchedFolders = new ConcurrentHashMap<>();
+  private static final Map<String, WatchKey> folderWatchKeys = new ConcurrentHashMap<>();
+  // folder path -> number of changes seen (an index listed before a change is not kept)
+  private static final Map<String, AtomicLong> folderChanges = new ConcurrentHashMap<>();
+  private static WatchService folderWatcher = null;
+  private static boolean folderWatcherChecked = false;
+
+  /**
+   * the folders are watched (WatchService), their index is dropped on any change and built again on next use
+   * <br>not used with a polling WatchService (changes would be seen too late)
+   */
+  private static synchronized WatchService getFolderWatcher() {
+    if (!folderWatcherChecked) {
+      folderWatcherChecked = true;
+      try {
+        WatchService watcher = FileSystems.getDefault().newWatchService();
+        if (watcher.getClass().getName().contains("Polling")) {
+          log(lvl, "index: not used (polling WatchService)");
+          watcher.close();
+          return null;
+        }
+        folderWatcher = watcher;
+        Thread thread = new Thread(ImagePath::watchFolders, "SikuliX-ImagePathWatch");
+        thread.setDaemon(true);
+        thread.start();
+      } catch (IOException e) {
+        log(-1, "index: not used: %s", e.getMessage());
+      }
+    }
+    return folderWatcher;
+  }
+
+  private static void watchFolders() {
+    while (true) {
+      WatchKey key;
+      try {
+        key = folderWatcher.take();
+      } catch (InterruptedException | ClosedWatchServiceException e) {
+        return;
+      }
+      key.pollEvents();
+      String folder = watchedFolders.get(key);
+      if (folder != null) {
+        folderChanges.computeIfAbsent(folder, f -> new AtomicLong()).incrementAndGet();
+        folderIndex.remove(folder);
+        log(lvl + 1, "index: dropped (changed): %s", folder);
+      }
+      if (!key.reset()) {
+        watchedFolders.remove(key);
+        if (folder != null) {
+          folderWatchKeys.remove(folder, key);
+          folderIndex.remove(folder);
+        }
+      }
+    }
+  }
+
+  private static boolean isIgnoringCase() {
+    return !RunTime.get().runningLinux;
+  }
+
+  private static boolean existsInFolder(File pathFolder, String imageFileName) {
+    File file = new File(pathFolder, imageFileName);
+    WatchService watcher = getFolderWatcher();
+    File folder = file.getParentFile();
+    if (!Settings.ImagePathIndex || watcher == null || folder == null) {
+      return file.exists();
+    }
+    String folderPath = folder.getAbsolutePath();
+    if (!folderWatchKeys.containsKey(folderPath)) {
+      // not possible for a folder that does not exist
+      try {
+        WatchKey key = folder.toPath().register(watcher,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        watchedFolders.put(key, folderPath);
+        folderWatchKeys.put(folderPath, key);
+      } catch (IOException e) {
+        return file.exists();
+      }
+    }
+    Set<String> names = folderIndex.computeIfAbsent(folderPath, key -> makeFolderIndex(folder, key));
+    if (names == null) {
+      // changed while listing: the index is built again with the next lookup
+      return file.exists();
+    }
+    // the index is trusted - it is dropped with every change signalled by the watcher
+    String name = file.getName();
+    return names.contains(isIgnoringCase() ? name.toLowerCase() : name);
+  }
+
+  /**
+   * @return the names of the files in the folder or null, if the folder changed while listing
+   */
+  private static Set<String> makeFolderIndex(File folder, String folderPath) {
+    long changes = folderChanges.computeIfAbsent(folderPath, f -> new AtomicLong()).get();
+    Set<String> names = new HashSet<>();
+    String[] fileNames = folder.list();
+    if (fileNames != null) {
+      for (String name : fileNames) {
+        names.add(isIgnoringCase() ? name.toLowerCase() : name);
+      }
+    }
+    if (folderChanges.get(folderPath).get() != changes) {
+      log(lvl + 1, "index: %s changed while listing - not kept", folderPath);
+      return null;
+    }
+    log(lvl + 1, "index: %s (%d files)", folderPath, names.size());
+    return names;
+  }
+
+  /**
+   * drop the index of a path entry no longer on the image path (stops watching its folders)
+   */
+  private static void dropIndex(PathEntry pathEntry) {
+    if (pathEntry == null || pathEntry.pathURL == null) {
+      return;
+    }
+    for (PathEntry path : imagePaths) {
+      if (path != null && path.pathURL != null && path.pathURL.toString().equals(pathEntry.pathURL.toString())) {
+        return;
+      }
+    }
+    if ("file".equals(pathEntry.pathURL.getProtocol())) {
+      String entryPath = new File(pathEntry.pathURL.getPath()).getAbsolutePath();
+      Iterator<Map.Entry<String, WatchKey>> watched = folderWatchKeys.entrySet().iterator();
+      while (watched.hasNext()) {
+        Map.Entry<String, WatchKey> entry = watched.next();
+        String folder = entry.getKey();
+        if (folder.equals(entryPath) || folder.startsWith(entryPath + File.separator)) {
+          entry.getValue().cancel();
+          watchedFolders.remove(entry.getValue());
+          watched.remove();
+          folderIndex.remove(folder);
+          folderChanges.remove(folder);
+          log(lvl + 1, "index: dropped (not on image path): %s", folder);
+        }
+      }
+    } else {
+      jarIndex.remove(pathEntry.pathURL.toString());
+    }
+  }
+
+  private static boolean existsInJar(URL pathURL, String imageFileName) {
+    if (!Settings.ImagePathIndex) {
+      return true;
+    }
+    Set<String> names = jarIndex.computeIfAbsent(pathURL.toString(), key -> makeJarIndex(pathURL));
+    if (names.isEmpty()) {
+      // no index possible - as before: assume it is there
+      return true;
+    }
+    return names.contains(FileManager.slashify(imageFileName, false));
+  }
+
+  private static Set<String> makeJarIndex(URL pathURL) {
+    Set<String> names = new HashSet<>();
+    String jarPath = pathURL.getPath();
+    int n = jarPath.indexOf("!/");
+    String prefix = "";
+    if (n > -1) {
+      prefix = jarPath.substring(n + 2);
+      jarPath = jarPath.substring(0, n);
+    }
+    if (!prefix.isEmpty() && !prefix.endsWith("/")) {
+      prefix += "/";
+    }
+    try (JarFile jar = new JarFile(new File(new URL(jarPath).toURI()))) {
+      Enumeration<JarEntry> entries = jar.entries();
+      while (entries.hasMoreElements()) {
+        String entryName = entries.nextElement().getName();
+        if (entryName.startsWith(prefix) && !entryName.endsWith("/")) {
+          names.add(entryName.substring(prefix.length()));
+        }
+      }
+      log(lvl + 1, "index: %s (%d entries)", pathURL, names.size());
+    } catch (Exception e) {
+      log(-1, "index: not possible: %s (%s)", pathURL, e.getMessage());
+      names.clear();
+    }
+    return names;
+  }
+  //</editor-fold>
+
   //<editor-fold desc="10 find image">
   /**
    * try to find the given relative image file name on the image path<br>
@@ -645,7 +909,7 @@ public class ImagePath {
         }
         proto = path.pathURL.getProtocol();
         if ("file".equals(proto)) {
-          if (new File(path.pathURL.getPath(), imageFileName).exists()) {
+          if (existsInFolder(new File(path.pathURL.getPath()), imageFileName)) {
             try {
               fURL = new URL("file", null, new File(path.pathURL.getPath(), imageFileName).getPath());
               break;
@@ -653,6 +917,22 @@ public class ImagePath {
             }
           }
         } else if ("jar".equals(proto) || proto.startsWith("http")) {
+          if ("jar".equals(proto) && !existsInJar(path.pathURL, imageFileName)) {
+            continue;
+          }
+          if (!"jar".equals(proto) && HTTPImageCache.isActive()) {
+            String sRes = path.pathURL.toString();
+            try {
+              fURL = new URL(sRes.endsWith("/") ? sRes + imageFileName : sRes + "/" + imageFileName);
+            } catch (MalformedURLException e) {
+              fURL = null;
+            }
+            if (fURL != null && HTTPImageCache.get(fURL) != null) {
+              break;
+            }
+            fURL = null;
+            continue;
+          }
           fURL = FileManager.getURLForContentFromURL(path.pathURL, imageFileName);
           if (fURL != null) {
             break;
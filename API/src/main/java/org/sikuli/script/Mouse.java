@@ -79,10 +79,16 @@ public class Mouse {
   }
 
   protected static boolean use(Object owner) {
+    if (owner instanceof Region && !usesDevice((Region) owner)) {
+      return true;
+    }
     return get().device.use(owner);
   }
 
   protected static boolean keep(Object owner) {
+    if (owner instanceof Region && !usesDevice((Region) owner)) {
+      return true;
+    }
     return get().device.keep(owner);
   }
 
@@ -91,6 +97,9 @@ public class Mouse {
   }
 
   protected static boolean let(Object owner) {
+    if (owner instanceof Region && !usesDevice((Region) owner)) {
+      return true;
+    }
     return get().get().device.let(owner);
   }
 
@@ -244,6 +253,17 @@ public class Mouse {
     }
   }
 
+  /**
+   * a FileScreen gets the actions only through its FileRobot: the local mouse device is not used (headless)
+   */
+  private static boolean usesDevice(IScreen screen) {
+    return !(screen instanceof FileScreen);
+  }
+
+  private static boolean usesDevice(Region region) {
+    return region == null || usesDevice(region.getScreen());
+  }
+
   protected static int click(Location loc, int buttons, Integer modifiers, boolean dblClick, Region region) {
     if (modifiers == null) {
       modifiers = 0;
@@ -265,7 +285,10 @@ public class Mouse {
       profiler.end();
       return 0;
     }
-    get().device.use(region);
+    boolean useDevice = usesDevice(screen);
+    if (useDevice) {
+      get().device.use(region);
+    }
     profiler.lap("before move");
     doMove(shouldMove, screen, loc, robot);
     robot.clickStarts();
@@ -297,7 +320,10 @@ public class Mouse {
     robot.clickEnds();
     robot.waitForIdle();
     profiler.lap("before let");
-    get().device.let(region);
+    if (useDevice) {
+      get().device.let(region);
+    }
+    Screen.resetCaptureCache();
     long duration = profiler.end();
     Debug.action(getClickMsg(loc, buttons, modifiers, dblClick, duration));
     return 1;
@@ -399,6 +425,11 @@ public class Mouse {
   }
 
   protected static int move(Location loc, Region region) {
+    if (loc != null && !usesDevice(loc.getScreen())) {
+      IScreen screen = loc.getScreen();
+      doMove(true, screen, loc, screen.getRobot());
+      return 1;
+    }
     if (get().device.isSuspended()) {
       return 0;
     }
@@ -423,6 +454,7 @@ public class Mouse {
       if (!robot.isRemote()) {
         get().device.let(region);
       }
+      Screen.resetCaptureCache();
       return 1;
     }
     return 0;
@@ -438,11 +470,16 @@ public class Mouse {
   }
 
   protected static void down(int buttons, Region region) {
+    if (!usesDevice(region)) {
+      Screen.getRobot(region).mouseDown(buttons);
+      return;
+    }
     if (get().device.isSuspended()) {
       return;
     }
     get().device.use(region);
     Screen.getRobot(region).mouseDown(buttons);
+    Screen.resetCaptureCache();
   }
 
   /**
@@ -463,10 +500,15 @@ public class Mouse {
   }
 
   protected static void up(int buttons, Region region) {
+    if (!usesDevice(region)) {
+      Screen.getRobot(region).mouseUp(buttons);
+      return;
+    }
     if (get().device.isSuspended()) {
       return;
     }
     Screen.getRobot(region).mouseUp(buttons);
+    Screen.resetCaptureCache();
     if (region != null) {
       get().device.let(region);
     }
@@ -488,11 +530,14 @@ public class Mouse {
   }
 
   protected static void wheel(int direction, int steps, Region region, int stepDelay) {
-    if (get().device.isSuspended()) {
+    boolean useDevice = usesDevice(region);
+    if (useDevice && get().device.isSuspended()) {
       return;
     }
     IRobot r = Screen.getRobot(region);
-    get().device.use(region);
+    if (useDevice) {
+      get().device.use(region);
+    }
     String wheelComment = (direction == WHEEL_UP ? "Content upwards" : "Content downwards");
     if (!Settings.WheelNatural) {
       wheelComment = (direction == WHEEL_UP ? "Content downwards" : "Content upwards");
@@ -503,6 +548,9 @@ public class Mouse {
       r.mouseWheel(direction);
       r.delay(stepDelay);
     }
-    get().device.let(region);
+    Screen.resetCaptureCache();
+    if (useDevice) {
+      get().device.let(region);
+    }
   }
 }
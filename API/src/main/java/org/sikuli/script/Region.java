@@ -5,6 +5,7 @@ package org.sikuli.script;
 
 import org.sikuli.basics.Debug;
 import org.sikuli.basics.Settings;
+import org.sikuli.natives.X11DamageMonitor;
 import org.sikuli.script.support.Observer;
 import org.sikuli.script.support.*;
 import org.sikuli.util.Highlight;
@@ -12,9 +13,17 @@ import org.sikuli.util.Highlight;
 import java.awt.*;
 import java.awt.event.InputEvent;
 import java.awt.event.KeyEvent;
+import java.io.File;
 import java.io.IOException;
+import java.text.SimpleDateFormat;
 import java.util.List;
 import java.util.*;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * A Region is a rectengular area and lies always completely inside its parent screen
@@ -1403,6 +1412,20 @@ public class Region {
       simg.saveLastScreenImage(RunTime.get().fSikulixStore);
     }
   }
+
+  /**
+   * stores the recent captures of this regions screen as PNG files (see Settings.FrameHistorySize)
+   *
+   * @param path folder to use (created if needed)
+   * @param seconds how far to look back
+   * @return number of files written (0 if no frames or not a local screen)
+   */
+  public int saveFrameHistory(String path, double seconds) {
+    if (!(getScreen() instanceof Screen) || path == null) {
+      return 0;
+    }
+    return ((Screen) getScreen()).getFrameHistory().save(new File(path), (long) (seconds * 1000));
+  }
   //</editor-fold>
 
   //<editor-fold defaultstate="collapsed" desc="007 spatial operators - new regions">
@@ -2615,7 +2638,7 @@ public class Region {
       return null;
     }
     Match mResult = null;
-    List<Match> mList = findAnyCollect(pList);
+    List<Match> mList = findAnyCollect(pList, true);
     if (mList.size() > 0) {
       Collections.sort(mList, new Comparator<Match>() {
         @Override
@@ -2648,7 +2671,7 @@ public class Region {
     if (pList == null || pList.size() == 0) {
       return new ArrayList<Match>();
     }
-    List<Match> mList = findAnyCollect(pList);
+    List<Match> mList = findAnyCollect(pList, false);
     return mList;
   }
 
@@ -2797,6 +2820,10 @@ public class Region {
    * waiting.
    */
   private <PSI> Match doFind(PSI ptn, Image img, Repeatable repeating) {
+    List<Region> parts = getSearchParts();
+    if (parts != null && !isTextTarget(ptn, img)) {
+      return doFindInParts(ptn, img, parts);
+    }
     Finder finder = null;
     Match match = null;
     //IScreen screen = null;
@@ -2809,7 +2836,7 @@ public class Region {
     }
     if (repeating != null && repeating._finder != null) {
       finder = repeating._finder;
-      simg = getScreen().capture(this);
+      simg = repeating.nextCapture();
       finder.setScreenImage(simg);
       finder.setRepeating();
       if (Settings.FindProfiling) {
@@ -2887,6 +2914,117 @@ public class Region {
     return match;
   }
 
+  /**
+   * with Settings.LinuxDamageEvents on Linux/X11 (local screens only)
+   *
+   * @return a Watch reporting changes in this region or null
+   */
+  private X11DamageMonitor.Watch getDamageWatch() {
+    if (Settings.LinuxDamageEvents && RunTime.get().runningLinux && getScreen() instanceof Screen) {
+      return X11DamageMonitor.watch(getRect());
+    }
+    return null;
+  }
+
+  /**
+   * with Settings.SharedCapture (local screens only, region must be on the screen)
+   *
+   * @param rate frames per second wanted
+   * @return a subscription to the screen's capture pipeline or null
+   */
+  private CapturePipeline.Subscription getCaptureSubscription(float rate) {
+    if (Settings.SharedCapture && getScreen() instanceof Screen && getScreen().getBounds().contains(getRect())) {
+      return CapturePipeline.get((Screen) getScreen()).subscribe(getRect(), rate);
+    }
+    return null;
+  }
+
+  /**
+   * INTERNAL USE: areas to be captured and searched separately and in parallel (see ScreenUnion)
+   *
+   * @return null: the region is searched as a whole (default)
+   */
+  protected List<Region> getSearchParts() {
+    return null;
+  }
+
+  private boolean isTextTarget(Object ptn, Image img) {
+    if (ptn instanceof String && ((String) ptn).startsWith("\t") && ((String) ptn).endsWith("\t")) {
+      return true;
+    }
+    return img != null && img.isText();
+  }
+
+  /**
+   * the parts are searched in parallel, each with its own capture
+   *
+   * @return the best match of all parts (global coordinates) or null
+   */
+  private <PSI> Match doFindInParts(PSI ptn, Image img, List<Region> parts) {
+    List<Future<Match>> futures = new ArrayList<>();
+    for (Region part : parts) {
+      futures.add(getFindAnyPool().submit(() -> part.doFind(ptn, img, null)));
+    }
+    Match match = null;
+    for (Future<Match> future : futures) {
+      try {
+        Match partMatch = future.get();
+        if (partMatch != null && (match == null || partMatch.getScore() > match.getScore())) {
+          match = partMatch;
+        }
+      } catch (ExecutionException e) {
+        log(-1, "doFindInParts: %s", e.getCause());
+      } catch (InterruptedException e) {
+        cancelAll(futures);
+        Thread.currentThread().interrupt();
+        return null;
+      }
+    }
+    return match;
+  }
+
+  /**
+   * the parts are searched in parallel, each with its own capture
+   *
+   * @return the matches of all parts (global coordinates, best first) or null
+   */
+  private <PSI> Iterator<Match> doFindAllInParts(PSI ptn, List<Region> parts) {
+    List<Future<List<Match>>> futures = new ArrayList<>();
+    for (Region part : parts) {
+      futures.add(getFindAnyPool().submit(() -> {
+        List<Match> partMatches = new ArrayList<>();
+        Iterator<Match> found = part.doFindAll(ptn, null);
+        while (found != null && found.hasNext()) {
+          partMatches.add(found.next());
+        }
+        return partMatches;
+      }));
+    }
+    List<Match> matches = new ArrayList<>();
+    for (Future<List<Match>> future : futures) {
+      try {
+        matches.addAll(future.get());
+      } catch (ExecutionException e) {
+        log(-1, "doFindAllInParts: %s", e.getCause());
+      } catch (InterruptedException e) {
+        cancelAll(futures);
+        Thread.currentThread().interrupt();
+        return null;
+      }
+    }
+    if (matches.isEmpty()) {
+      return null;
+    }
+    matches.sort((m1, m2) -> Double.compare(m2.getScore(), m1.getScore()));
+    return new Finder(matches);
+  }
+
+  private static void cancelAll(List<? extends Future<?>> futures) {
+    for (Future<?> future : futures) {
+      future.cancel(true);
+    }
+  }
+
   private void runFinder(Finder f, Object target) {
     if (Debug.shouldHighlight()) {
       if (this.scr.getW() > w + 20 && this.scr.getH() > h + 20) {
@@ -2900,14 +3038,25 @@ public class Region {
     }
   }
 
+  private static final int captureAlignment = 16;
+
+  /**
+   * the last seen rectangle widened to multiples of captureAlignment (whole rows of pixel blocks),
+   * but not beyond this region
+   */
+  private Rectangle getLastSeenCaptureRect(Rectangle lastSeen) {
+    int left = Math.floorDiv(lastSeen.x, captureAlignment) * captureAlignment;
+    int right = -Math.floorDiv(-(lastSeen.x + lastSeen.width), captureAlignment) * captureAlignment;
+    Rectangle rect = new Rectangle(left, lastSeen.y, right - left, lastSeen.height);
+    return rect.intersection(getRect());
+  }
+
   private Finder checkLastSeenAndCreateFinder(Image img, double findTimeout, Pattern ptn) {
-    return doCheckLastSeenAndCreateFinder(null, img, findTimeout, ptn);
+    return doCheckLastSeenAndCreateFinder(null, null, img, findTimeout, ptn);
   }
 
-  private Finder doCheckLastSeenAndCreateFinder(ScreenImage base, Image img, double findTimeout, Pattern ptn) {
-    if (base == null) {
-      base = getScreen().capture(this);
-    }
+  private Finder doCheckLastSeenAndCreateFinder(ScreenImage base, Finder baseFinder,
+                                                Image img, double findTimeout, Pattern ptn) {
     boolean shouldCheckLastSeen = false;
     double score = 0;
     if (Settings.CheckLastSeen && null != img.getLastSeen()) {
@@ -2921,7 +3070,19 @@ public class Region {
     if (shouldCheckLastSeen) {
       Region r = Region.create(img.getLastSeen());
       if (this.contains(r)) {
-        Finder f = new Finder(base.getSub(r.getRect()), r);
+        Finder f;
+        if (base == null) {
+          // only the last seen area is captured - the whole region only if it is not there anymore
+          Rectangle lastSeenRect = getLastSeenCaptureRect(r.getRect());
+          // only full region captures go to the frame history
+          ScreenImage lastSeenImage = getScreen() instanceof Screen
+                  ? ((Screen) getScreen()).capturePart(lastSeenRect) : getScreen().capture(lastSeenRect);
+          f = new Finder(lastSeenImage.getSub(r.getRect()), r);
+        } else if (baseFinder == null) {
+          f = new Finder(base.getSub(r.getRect()), r);
+        } else {
+          f = new Finder(baseFinder, new Rectangle(r.x - base.x, r.y - base.y, r.w, r.h), r);
+        }
         if (Debug.shouldHighlight()) {
           if (this.scr.getW() > w + 10 && this.scr.getH() > h + 10) {
             highlight(2, "#000255000");
@@ -2940,7 +3101,13 @@ public class Region {
         log(lvl, "checkLastSeen: not there");
       }
     }
-    return new Finder(base, this);
+    if (base == null) {
+      base = getScreen().capture(this);
+    }
+    if (baseFinder == null) {
+      return new Finder(base, this);
+    }
+    return new Finder(baseFinder, null, this);
   }
 
   /**
@@ -2948,12 +3115,16 @@ public class Region {
    * without waiting.
    */
   private <PSI> Iterator<Match> doFindAll(PSI ptn, RepeatableFindAll repeating) {
+    List<Region> parts = getSearchParts();
+    if (parts != null && !isTextTarget(ptn, Image.getImageFromTarget(ptn))) {
+      return doFindAllInParts(ptn, parts);
+    }
     boolean findingText = false;
     Finder finder = null;
     String someText = "";
     if (repeating != null && repeating._finder != null) {
       finder = repeating._finder;
-      finder.setScreenImage(getScreen().capture(x, y, w, h));
+      finder.setScreenImage(repeating.nextCapture());
       finder.setRepeating();
       finder.findAllRepeat();
     } else {
@@ -3057,6 +3228,20 @@ public class Region {
 
     private double findTimeout;
 
+    CapturePipeline.Subscription _frames = null;
+    private int frameTimeout = 0;
+
+    ScreenImage nextCapture() {
+      ScreenImage simg = null;
+      if (_frames != null) {
+        simg = _frames.next(frameTimeout);
+      }
+      if (simg == null) {
+        simg = getScreen().capture(Region.this);
+      }
+      return simg;
+    }
+
     public void setTarget(String target) {
       _target = target;
     }
@@ -3088,21 +3273,49 @@ public class Region {
       int MaxTimePerScan = (int) (1000.0 / waitScanRate);
       int timeoutMilli = (int) (timeout * 1000);
       long begin_t = (new Date()).getTime();
-      do {
-        long before_find = (new Date()).getTime();
-        run();
-        if (ifSuccessful()) {
-          return true;
-        } else if (timeoutMilli < MaxTimePerScan) {
-          return false;
+      X11DamageMonitor.Watch damageWatch = null;
+      if (timeoutMilli >= MaxTimePerScan) {
+        damageWatch = getDamageWatch();
+        _frames = getCaptureSubscription(waitScanRate);
+        frameTimeout = 2 * MaxTimePerScan;
+      }
+      try {
+        do {
+          long before_find = (new Date()).getTime();
+          if (damageWatch != null) {
+            damageWatch.reset();
+          }
+          run();
+          if (ifSuccessful()) {
+            return true;
+          } else if (timeoutMilli < MaxTimePerScan) {
+            return false;
+          }
+          if (damageWatch != null) {
+            // search again only when the region has changed
+            damageWatch.awaitDamage(begin_t + timeoutMilli - (new Date()).getTime());
+            // the scan rate stays the floor between two searches (below)
+          }
+          if (_frames != null) {
+            // the next frame comes at the scan rate
+            continue;
+          }
+          long after_find = (new Date()).getTime();
+          if (after_find - before_find < MaxTimePerScan) {
+            getRobotForRegion().delay((int) (MaxTimePerScan - (after_find - before_find)));
+          } else {
+            getRobotForRegion().delay(10);
+          }
+        } while (begin_t + timeout * 1000 > (new Date()).getTime());
+      } finally {
+        if (damageWatch != null) {
+          damageWatch.close();
         }
-        long after_find = (new Date()).getTime();
-        if (after_find - before_find < MaxTimePerScan) {
-          getRobotForRegion().delay((int) (MaxTimePerScan - (after_find - before_find)));
-        } else {
-          getRobotForRegion().delay(10);
+        if (_frames != null) {
+          _frames.close();
+          _frames = null;
         }
-      } while (begin_t + timeout * 1000 > (new Date()).getTime());
+      }
       return false;
     }
   }
@@ -3171,47 +3384,21 @@ public class Region {
   //</editor-fold>
 
   //<editor-fold defaultstate="collapsed" desc="022 Find internal support">
-  private class SubFindRun implements Runnable {
-
-    Match[] mArray;
-    ScreenImage base;
-    Object target;
-    Region reg;
-    boolean finished = false;
-    int subN;
-
-    public SubFindRun(Match[] pMArray, int pSubN,
-                      ScreenImage pBase, Object pTarget, Region pReg) {
-      subN = pSubN;
-      base = pBase;
-      target = pTarget;
-      reg = pReg;
-      mArray = pMArray;
-    }
-
-    @Override
-    public void run() {
-      try {
-        mArray[subN] = reg.findInImage(base, target);
-      } catch (Exception ex) {
-        log(-1, "findAnyCollect: image file not found:\n", target);
-      }
-      hasFinished(true);
-    }
-
-    public boolean hasFinished() {
-      return hasFinished(false);
-    }
-
-    public synchronized boolean hasFinished(boolean state) {
-      if (state) {
-        finished = true;
-      }
-      return finished;
+  private static final double exactScore = 0.99;
+  private static ExecutorService findAnyPool = null;
+
+  private static synchronized ExecutorService getFindAnyPool() {
+    if (findAnyPool == null) {
+      findAnyPool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+        Thread thread = new Thread(runnable, "SikuliX-findAny");
+        thread.setDaemon(true);
+        return thread;
+      });
     }
+    return findAnyPool;
   }
 
-  private Match findInImage(ScreenImage base, Object target) throws IOException {
+  private Match findInImage(ScreenImage base, Finder baseFinder, Object target) throws IOException {
     Finder finder = null;
     Match match = null;
     boolean findingText = false;
@@ -3222,7 +3409,7 @@ public class Region {
       } else {
         img = Image.create((String) target);
         if (img.isValid()) {
-          finder = doCheckLastSeenAndCreateFinder(base, img, 0.0, null);
+          finder = doCheckLastSeenAndCreateFinder(base, baseFinder, img, 0.0, null);
           if (!finder.hasNext()) {
             runFinder(finder, img);
           }
@@ -3242,7 +3429,7 @@ public class Region {
     } else if (target instanceof Pattern) {
       if (((Pattern) target).isValid()) {
         img = ((Pattern) target).getImage();
-        finder = doCheckLastSeenAndCreateFinder(base, img, 0.0, (Pattern) target);
+        finder = doCheckLastSeenAndCreateFinder(base, baseFinder, img, 0.0, (Pattern) target);
         if (!finder.hasNext()) {
           runFinder(finder, target);
         }
@@ -3252,7 +3439,7 @@ public class Region {
     } else if (target instanceof Image) {
       if (((Image) target).isValid()) {
         img = ((Image) target);
-        finder = doCheckLastSeenAndCreateFinder(base, img, 0.0, null);
+        finder = doCheckLastSeenAndCreateFinder(base, baseFinder, img, 0.0, null);
         if (!finder.hasNext()) {
           runFinder(finder, img);
         }
@@ -3271,41 +3458,76 @@ public class Region {
     return match;
   }
 
-  private List<Match> findAnyCollect(List<Object> pList) {
+  /**
+   * all targets are searched in parallel (bounded by the number of processors)
+   * in the same capture, that is converted only once
+   *
+   * @param pList the targets
+   * @param findBest true: stop as soon as one target is found exactly
+   * @return the matches in the order of the targets (Match.getIndex is the position in the list)
+   */
+  private List<Match> findAnyCollect(List<Object> pList, boolean findBest) {
     List<Match> mList = new ArrayList<Match>();
     if (pList == null) {
       return mList;
     }
-    Match[] mArray = new Match[pList.size()];
-    SubFindRun[] theSubs = new SubFindRun[pList.size()];
-    int nobj = 0;
     ScreenImage base = getScreen().capture(this);
+    Finder baseFinder = new Finder(base, this);
+    CompletionService<Match> findRuns = new ExecutorCompletionService<>(getFindAnyPool());
+    Map<Future<Match>, Integer> futures = new LinkedHashMap<>();
+    int nobj = 0;
     for (Object obj : pList) {
-      mArray[nobj] = null;
       if (obj instanceof Pattern || obj instanceof String || obj instanceof Image) {
-        theSubs[nobj] = new SubFindRun(mArray, nobj, base, obj, this);
-        new Thread(theSubs[nobj]).start();
+        futures.put(findRuns.submit(() -> {
+          try {
+            return findInImage(base, baseFinder, obj);
+          } catch (Exception ex) {
+            log(-1, "findAnyCollect: image file not found:\n", obj);
+          }
+          return null;
+        }), nobj);
       }
       nobj++;
     }
-    Debug.log(lvl, "findAnyCollect: waiting for SubFindRuns");
-    nobj = 0;
-    boolean all = false;
-    while (!all) {
-      all = true;
-      for (SubFindRun sub : theSubs) {
-        all &= sub.hasFinished();
+    Debug.log(lvl, "findAnyCollect: waiting for %d searches", futures.size());
+    boolean interrupted = false;
+    for (int n = 0; n < futures.size(); n++) {
+      Future<Match> done;
+      try {
+        done = findRuns.take();
+      } catch (InterruptedException e) {
+        interrupted = true;
+        break;
+      }
+      try {
+        Match match = done.get();
+        if (findBest && match != null && match.getScore() >= exactScore) {
+          Debug.log(lvl, "findAnyCollect: exact match - not waiting for the other searches");
+          break;
+        }
+      } catch (InterruptedException | ExecutionException e) {
+        // a failed search does not stop the others (reported below)
       }
     }
-    Debug.log(lvl, "findAnyCollect: SubFindRuns finished");
-    nobj = 0;
-    for (Match match : mArray) {
-      if (match != null) {
-        match.setIndex(nobj);
-        mList.add(match);
-      } else {
+    Debug.log(lvl, "findAnyCollect: searches finished");
+    for (Future<Match> future : futures.keySet()) {
+      if (!future.isDone()) {
+        future.cancel(true);
+        continue;
+      }
+      try {
+        Match match = future.get();
+        if (match != null) {
+          match.setIndex(futures.get(future));
+          mList.add(match);
+        }
+      } catch (InterruptedException | ExecutionException e) {
+        log(-1, "findAnyCollect: (%d) %s", futures.get(future), e.getCause());
       }
-      nobj++;
+    }
+    if (interrupted) {
+      // the searches still running were cancelled above
+      Thread.currentThread().interrupt();
     }
     return mList;
   }
@@ -3348,6 +3570,11 @@ public class Region {
 
   private <PSI> Boolean handleFindFailed(PSI target, Image img) {
     log(lvl, "handleFindFailed: %s", target);
+    if (Settings.FrameHistorySize > 0 && Settings.FrameHistoryFindFailedPath != null) {
+      String folder = String.format("FindFailed_%s_%d",
+              new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(new Date()), hashCode());
+      saveFrameHistory(new File(Settings.FrameHistoryFindFailedPath, folder).getPath(), getAutoWaitTimeout() + 1);
+    }
     Boolean state = null;
     ObserveEvent evt = null;
     FindFailedResponse response = findFailedResponse;
@@ -3801,9 +4028,20 @@ public class Region {
     regionObserver.initialize();
     observing = true;
     Observing.addRunningObserver(this);
+    X11DamageMonitor.Watch damageWatch = getDamageWatch();
+    CapturePipeline.Subscription frames = getCaptureSubscription(observeScanRate);
     while (observing && stop_t > (new Date()).getTime()) {
       long before_find = (new Date()).getTime();
-      ScreenImage simg = getScreen().capture(x, y, w, h);
+      if (damageWatch != null) {
+        damageWatch.reset();
+      }
+      ScreenImage simg = null;
+      if (frames != null) {
+        simg = frames.next(2 * MaxTimePerScan);
+      }
+      if (simg == null) {
+        simg = getScreen().capture(x, y, w, h);
+      }
       if (!regionObserver.update(simg)) {
         observing = false;
         break;
@@ -3811,6 +4049,16 @@ public class Region {
       if (!observing) {
         break;
       }
+      if (damageWatch != null) {
+        // capture again only when the region has changed (checking for stop every scan interval)
+        while (observing && stop_t > (new Date()).getTime() && !damageWatch.awaitDamage(MaxTimePerScan)) {
+        }
+        // the scan rate stays the floor between two captures (below)
+      }
+      if (frames != null) {
+        // the next frame comes at the scan rate
+        continue;
+      }
       long after_find = (new Date()).getTime();
       try {
         if (after_find - before_find < MaxTimePerScan) {
@@ -3819,6 +4067,12 @@ public class Region {
       } catch (Exception e) {
       }
     }
+    if (damageWatch != null) {
+      damageWatch.close();
+    }
+    if (frames != null) {
+      frames.close();
+    }
     boolean observeSuccess = false;
     if (observing) {
       observing = false;
@@ -4365,6 +4619,7 @@ public class Region {
    */
   public void keyDown(int keycode) {
     getRobotForRegion().keyDown(keycode);
+    Screen.resetCaptureCache();
   }
 
   /**
@@ -4376,6 +4631,7 @@ public class Region {
    */
   public void keyDown(String keys) {
     getRobotForRegion().keyDown(keys);
+    Screen.resetCaptureCache();
   }
 
   /**
@@ -4383,6 +4639,7 @@ public class Region {
    */
   public void keyUp() {
     getRobotForRegion().keyUp();
+    Screen.resetCaptureCache();
   }
 
   /**
@@ -4392,6 +4649,7 @@ public class Region {
    */
   public void keyUp(int keycode) {
     getRobotForRegion().keyUp(keycode);
+    Screen.resetCaptureCache();
   }
 
   /**
@@ -4401,6 +4659,7 @@ public class Region {
    */
   public void keyUp(String keys) {
     getRobotForRegion().keyUp(keys);
+    Screen.resetCaptureCache();
   }
 
   /**
@@ -4541,6 +4800,7 @@ public class Region {
 
     robot.typeEnds();
     robot.waitForIdle();
+    Screen.resetCaptureCache();
     return 0;
   }
 
@@ -4691,6 +4951,7 @@ public class Region {
       r.typeEnds();
       profiler.lap("after typing, before waitForIdle");
       r.waitForIdle();
+      Screen.resetCaptureCache();
       profiler.end();
       return 1;
     }
@@ -4744,6 +5005,7 @@ public class Region {
       r.keyDown(KeyEvent.VK_V);
       r.keyUp(KeyEvent.VK_V);
       r.keyUp(mod);
+      Screen.resetCaptureCache();
       return 1;
     }
     return 0;
@@ -673,6 +673,32 @@ public class Screen extends Region implements IScreen {
    */
   @Override
   public ScreenImage capture(Rectangle rect) {
+    return capture(rect, true);
+  }
+
+  /**
+   * INTERNAL USE: as capture(rect), but not recorded in the frame history
+   * (used for small crops like the area, where an image was last seen)
+   *
+   * @param rect The Rectangle to be captured
+   * @return the image of the region
+   */
+  ScreenImage capturePart(Rectangle rect) {
+    return capture(rect, false);
+  }
+
+  private ScreenImage capture(Rectangle rect, boolean record) {
+    if (Settings.CaptureCacheTime > 0) {
+      ScreenImage simg = getCacheScreen().captureCached(this, rect);
+      if (simg != null) {
+        lastScreenImage = simg;
+        return simg;
+      }
+    }
+    return doCapture(rect, record);
+  }
+
+  private ScreenImage doCapture(Rectangle rect, boolean record) {
     lastCaptureTime = new Date().getTime();
     ScreenImage simg = getRobot().captureScreen(rect);
     if (Settings.FindProfiling) {
@@ -683,9 +709,29 @@ public class Screen extends Region implements IScreen {
     if (Debug.getDebugLevel() > lvl) {
       simg.saveLastScreenImage(RunTime.get().fSikulixStore);
     }
+    if (record && Settings.FrameHistorySize > 0 && simg != null) {
+      getFrameHistory().add(simg);
+    }
     return simg;
   }
 
+  private FrameHistory frameHistory = null;
+
+  /**
+   * the recent captures of this screen (only recorded with Settings.FrameHistorySize &gt; 0)
+   *
+   * @return the frame history
+   */
+  public FrameHistory getFrameHistory() {
+    Screen screen = getCacheScreen();
+    synchronized (screen) {
+      if (screen.frameHistory == null) {
+        screen.frameHistory = new FrameHistory();
+      }
+      return screen.frameHistory;
+    }
+  }
+
   /**
    * create a ScreenImage with given region on this screen
    *
@@ -697,6 +743,60 @@ public class Screen extends Region implements IScreen {
     return capture(reg.getRect());
   }
 
+  //<editor-fold desc="capture cache">
+  private ScreenImage cachedFrame = null;
+  private long cachedFrameTime = -1;
+
+  private Screen getCacheScreen() {
+    if (curID > -1 && curID < screens.length) {
+      return screens[curID];
+    }
+    return this;
+  }
+
+  /**
+   * with Settings.CaptureCacheTime &gt; 0 the last full screen frame is kept for this time
+   * <br>captures within this screen are then taken from the frame (ScreenImage.getSub)
+   *
+   * @return the image or null (rectangle not within this screen)
+   */
+  private synchronized ScreenImage captureCached(Screen requester, Rectangle rect) {
+    Rectangle screenRect = requester.getRect();
+    if (!screenRect.contains(rect)) {
+      return null;
+    }
+    long now = new Date().getTime();
+    if (cachedFrame == null || !cachedFrame.getROI().equals(screenRect)
+            || now - cachedFrameTime > Settings.CaptureCacheTime) {
+      cachedFrame = requester.doCapture(screenRect, true);
+      cachedFrameTime = now;
+    } else {
+      log(lvl + 1, "capture: from cache (%d msec old)", now - cachedFrameTime);
+    }
+    if (rect.equals(screenRect)) {
+      return cachedFrame;
+    }
+    return cachedFrame.getSub(rect);
+  }
+
+  private synchronized void resetCachedFrame() {
+    cachedFrame = null;
+  }
+
+  /**
+   * drop the cached frames of all screens (see Settings.CaptureCacheTime)
+   * <br>done internally after every mouse and keyboard action
+   */
+  public static void resetCaptureCache() {
+    if (screens == null) {
+      return;
+    }
+    for (Screen screen : screens) {
+      screen.resetCachedFrame();
+    }
+  }
+  //</editor-fold>
+
   public static void doPrompt(String message, EventObserver obs) {
     captureObserver = obs;
     Screen.getPrimaryScreen().userCapture(message);
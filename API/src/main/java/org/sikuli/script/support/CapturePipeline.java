@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2010-2019, sikuli.org, sikulix.com - MIT license
+ */
+package org.sikuli.script.support;
+
+import org.sikuli.basics.Debug;
+import org.sikuli.script.Screen;
+import org.sikuli.script.ScreenImage;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * INTERNAL USE: one capture loop per Screen shared by all waits and observers (Settings.SharedCapture)
+ * <br>the producer thread captures the union of the subscribed regions at the highest requested rate,
+ * every subscriber gets its region of the latest frame
+ * <br>frames are never changed after capture, so the views can be used without copying
+ */
+public class CapturePipeline {
+
+  private static String me = "CapturePipeline: ";
+  private static int lvl = 3;
+
+  private static void log(int level, String message, Object... args) {
+    Debug.logx(level, me + message, args);
+  }
+
+  private static final Map<Integer, CapturePipeline> pipelines = new HashMap<>();
+
+  /**
+   * @param screen a local screen
+   * @return the pipeline of this screen (created if needed)
+   */
+  public static synchronized CapturePipeline get(Screen screen) {
+    CapturePipeline pipeline = pipelines.get(screen.getID());
+    if (pipeline == null) {
+      pipeline = new CapturePipeline(screen);
+      pipelines.put(screen.getID(), pipeline);
+    }
+    return pipeline;
+  }
+
+  private final Screen screen;
+  private final List<Subscription> subscriptions = new ArrayList<>();
+  private Thread producer = null;
+  private ScreenImage frame = null;
+  private long frameNumber = 0;
+
+  private CapturePipeline(Screen screen) {
+    this.screen = screen;
+  }
+
+  /**
+   * a region receiving frames from the pipeline
+   */
+  public class Subscription {
+    private final Rectangle area;
+    private final float rate;
+    private long lastFrame;
+    private long lastFrameTime = 0;
+
+    private Subscription(Rectangle area, float rate) {
+      this.area = new Rectangle(area);
+      this.rate = rate;
+    }
+
+    /**
+     * waits for a frame captured after the last one returned (or after subscribing),
+     * but at least 1000/rate milliseconds after the last one returned
+     *
+     * @param millis max time to wait
+     * @return the region's view of the frame or null (no frame in time - caller should capture itself)
+     */
+    public ScreenImage next(long millis) {
+      synchronized (CapturePipeline.this) {
+        long now = System.currentTimeMillis();
+        long end = now + millis;
+        long due = lastFrameTime + (long) (1000 / Math.max(rate, 0.1f));
+        while (now < due || frameNumber <= lastFrame || !frame.getROI().contains(area)) {
+          long rest = end - now;
+          if (rest <= 0) {
+            return null;
+          }
+          try {
+            CapturePipeline.this.wait(now < due ? Math.min(rest, due - now) : rest);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+          }
+          now = System.currentTimeMillis();
+        }
+        lastFrame = frameNumber;
+        lastFrameTime = now;
+        return frame.getSub(area);
+      }
+    }
+
+    public void close() {
+      synchronized (CapturePipeline.this) {
+        subscriptions.remove(this);
+      }
+    }
+  }
+
+  /**
+   * @param area the region in global coordinates
+   * @param rate frames per second wanted
+   * @return the subscription (to be closed after use)
+   */
+  public synchronized Subscription subscribe(Rectangle area, float rate) {
+    Subscription subscription = new Subscription(area, rate);
+    subscription.lastFrame = frameNumber;
+    subscriptions.add(subscription);
+    if (producer == null) {
+      producer = new Thread(this::produce, "SikuliX-Capture-" + screen.getID());
+      producer.setDaemon(true);
+      producer.start();
+    }
+    return subscription;
+  }
+
+  private void produce() {
+    log(lvl, "screen %d: started", screen.getID());
+    while (true) {
+      long start = System.currentTimeMillis();
+      Rectangle captureArea = null;
+      float rate = 0;
+      synchronized (this) {
+        if (subscriptions.isEmpty()) {
+          producer = null;
+          frame = null;
+          log(lvl, "screen %d: stopped (no subscribers)", screen.getID());
+          return;
+        }
+        for (Subscription subscription : subscriptions) {
+          captureArea = captureArea == null ? subscription.area : captureArea.union(subscription.area);
+          rate = Math.max(rate, subscription.rate);
+        }
+      }
+      captureArea = captureArea.intersection(screen.getRect());
+      if (!captureArea.isEmpty()) {
+        try {
+          ScreenImage simg = screen.capture(captureArea);
+          synchronized (this) {
+            frame = simg;
+            frameNumber++;
+            notifyAll();
+          }
+        } catch (Exception e) {
+          log(-1, "screen %d: capture: %s", screen.getID(), e.getMessage());
+        }
+      }
+      long rest = (long) (1000 / Math.max(rate, 0.1f)) - (System.currentTimeMillis() - start);
+      try {
+        Thread.sleep(Math.max(rest, 1));
+      } catch (InterruptedException e) {
+        synchronized (this) {
+          producer = null;
+        }
+        return;
+      }
+    }
+  }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2010-2019, sikuli.org, sikulix.com - MIT license
+ */
+package org.sikuli.script.support;
+
+import org.sikuli.basics.Debug;
+import org.sikuli.script.Location;
+import org.sikuli.script.ScreenImage;
+
+import java.awt.Color;
+import java.awt.Rectangle;
+
+/**
+ * the robot of a FileScreen: mouse and keyboard actions are only logged
+ */
+class FileRobot implements IRobot {
+
+  private static String me = "FileRobot: ";
+  private static int lvl = 3;
+
+  private static void log(int level, String message, Object... args) {
+    Debug.logx(level, me + message, args);
+  }
+
+  private final FileScreen screen;
+  private int mouseX = 0;
+  private int mouseY = 0;
+  private int mouseButtons = 0;
+
+  FileRobot(FileScreen screen) {
+    this.screen = screen;
+  }
+
+  /**
+   * @return where the virtual mouse is (last move or click)
+   */
+  Location getMouseLocation() {
+    return new Location(mouseX, mouseY);
+  }
+
+  @Override
+  public ScreenImage captureScreen(Rectangle screenRect) {
+    return screen.capture(screenRect);
+  }
+
+  @Override
+  public boolean isRemote() {
+    return true;
+  }
+
+  @Override
+  public IScreen getScreen() {
+    return screen;
+  }
+
+  @Override
+  public void keyDown(String keys) {
+    log(lvl, "keyDown: %s", keys);
+  }
+
+  @Override
+  public void keyUp(String keys) {
+    log(lvl, "keyUp: %s", keys);
+  }
+
+  @Override
+  public void keyDown(int code) {
+    log(lvl, "keyDown: %d", code);
+  }
+
+  @Override
+  public void keyUp(int code) {
+    log(lvl, "keyUp: %d", code);
+  }
+
+  @Override
+  public void keyUp() {
+    log(lvl, "keyUp: all");
+  }
+
+  @Override
+  public void pressModifiers(int modifiers) {
+    log(lvl, "pressModifiers: %d", modifiers);
+  }
+
+  @Override
+  public void releaseModifiers(int modifiers) {
+    log(lvl, "releaseModifiers: %d", modifiers);
+  }
+
+  @Override
+  public void typeChar(char character, KeyMode mode) {
+    log(lvl, "typeChar: %s (%s)", character, mode);
+  }
+
+  @Override
+  public void typeKey(int key) {
+    log(lvl, "typeKey: %d", key);
+  }
+
+  @Override
+  public void typeStarts() {
+    // Nothing to do
+  }
+
+  @Override
+  public void typeEnds() {
+    // Nothing to do
+  }
+
+  @Override
+  public void mouseMove(int x, int y) {
+    mouseX = x;
+    mouseY = y;
+    log(lvl + 1, "mouseMove: (%d,%d)", x, y);
+  }
+
+  @Override
+  public void mouseDown(int buttons) {
+    mouseButtons |= buttons;
+    log(lvl, "mouseDown: %d at (%d,%d)", buttons, mouseX, mouseY);
+  }
+
+  @Override
+  public int mouseUp(int buttons) {
+    mouseButtons &= ~buttons;
+    log(lvl, "mouseUp: %d at (%d,%d)", buttons, mouseX, mouseY);
+    return mouseButtons;
+  }
+
+  @Override
+  public void mouseReset() {
+    mouseButtons = 0;
+  }
+
+  @Override
+  public void clickStarts() {
+    // Nothing to do
+  }
+
+  @Override
+  public void clickEnds() {
+    // Nothing to do
+  }
+
+  @Override
+  public void smoothMove(Location dest) {
+    mouseMove(dest.x, dest.y);
+  }
+
+  @Override
+  public void smoothMove(Location src, Location dest, long ms) {
+    mouseMove(dest.x, dest.y);
+  }
+
+  @Override
+  public void mouseWheel(int wheelAmt) {
+    log(lvl, "mouseWheel: %d at (%d,%d)", wheelAmt, mouseX, mouseY);
+  }
+
+  @Override
+  public void waitForIdle() {
+    // Nothing to do
+  }
+
+  @Override
+  public void delay(int ms) {
+    try {
+      Thread.sleep(ms);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public void setAutoDelay(int ms) {
+    // Nothing to do
+  }
+
+  @Override
+  public Color getColorAt(int x, int y) {
+    ScreenImage image = captureScreen(new Rectangle(x, y, 1, 1));
+    if (image == null) {
+      return null;
+    }
+    return new Color(image.getImage().getRGB(0, 0));
+  }
+
+  @Override
+  public void cleanup() {
+    // Nothing to do
+  }
+}
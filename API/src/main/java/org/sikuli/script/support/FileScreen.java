@@ -0,0 +1,337 @@
+/*
+ * Copyright (c) 2010-2019, sikuli.org, sikulix.com - MIT license
+ */
+package org.sikuli.script.support;
+
+import org.sikuli.basics.Debug;
+import org.sikuli.script.*;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * a virtual screen, that shows images from files instead of a real display
+ * <br>the frames are the PNG files of a folder (sorted by name - e.g. saved by Region.saveFrameHistory)
+ * or a single image file
+ * <br>mouse and keyboard actions are only logged (see FileRobot) - they do not use the local mouse,
+ * so find, click, wait and observe can be run without a display (benchmarks, tests)
+ * <br>the frame shown is switched with nextFrame()/setFrame() or automatically with setFrameRate()
+ */
+public class FileScreen extends Region implements IScreen {
+
+  private static String me = "FileScreen: ";
+  private static int lvl = 3;
+
+  private static void log(int level, String message, Object... args) {
+    Debug.logx(level, me + message, args);
+  }
+
+  private final List<File> frameFiles = new ArrayList<>();
+  private final String path;
+  private final FileRobot robot;
+  private int frameIndex = -1;
+  private BufferedImage frame = null;
+  private float frameRate = 0;
+  private long frameRateStart = 0;
+  private ScreenImage lastScreenImage = null;
+
+  /**
+   * @param path folder containing PNG files or an image file
+   * @return the screen or null (no images found)
+   */
+  public static FileScreen start(String path) {
+    File file = new File(path);
+    List<File> files = new ArrayList<>();
+    if (file.isDirectory()) {
+      File[] pngs = file.listFiles((dir, name) -> name.toLowerCase().endsWith(".png"));
+      if (pngs != null) {
+        Arrays.sort(pngs);
+        files.addAll(Arrays.asList(pngs));
+      }
+    } else if (file.exists()) {
+      files.add(file);
+    }
+    if (files.isEmpty()) {
+      Debug.error("FileScreen: start: no images: %s", path);
+      return null;
+    }
+    FileScreen screen = new FileScreen(file.getAbsolutePath(), files);
+    if (!screen.setFrame(0)) {
+      return null;
+    }
+    log(lvl, "start: %s", screen);
+    return screen;
+  }
+
+  private FileScreen(String path, List<File> files) {
+    this.path = path;
+    frameFiles.addAll(files);
+    robot = new FileRobot(this);
+  }
+
+  private void init() {
+    setOtherScreen(this);
+    setRect(new Rectangle(0, 0, frame.getWidth(), frame.getHeight()));
+    initScreen(this);
+  }
+
+  //<editor-fold desc="frames">
+  /**
+   * @return number of frames
+   */
+  public int getFrameCount() {
+    return frameFiles.size();
+  }
+
+  /**
+   * @return index of the frame shown now
+   */
+  public synchronized int getFrame() {
+    updateFrame();
+    return frameIndex;
+  }
+
+  /**
+   * show the given frame (stops an automatic frame rate)
+   *
+   * @param index frame index
+   * @return false if the frame could not be loaded
+   */
+  public synchronized boolean setFrame(int index) {
+    frameRate = 0;
+    return loadFrame(index);
+  }
+
+  /**
+   * show the next frame (the last frame stays)
+   *
+   * @return false if already at the last frame
+   */
+  public synchronized boolean nextFrame() {
+    if (frameIndex + 1 >= frameFiles.size()) {
+      return false;
+    }
+    return setFrame(frameIndex + 1);
+  }
+
+  /**
+   * frames are switched automatically (starting now with the current frame), the last frame stays
+   *
+   * @param framesPerSecond 0 stops switching
+   */
+  public synchronized void setFrameRate(float framesPerSecond) {
+    updateFrame();
+    frameRate = Math.max(framesPerSecond, 0);
+    frameRateStart = new Date().getTime() - (long) (frameIndex * 1000 / Math.max(frameRate, 0.001f));
+  }
+
+  private void updateFrame() {
+    if (frameRate <= 0) {
+      return;
+    }
+    int index = (int) ((new Date().getTime() - frameRateStart) * frameRate / 1000);
+    index = Math.min(index, frameFiles.size() - 1);
+    if (index != frameIndex) {
+      loadFrame(index);
+    }
+  }
+
+  private boolean loadFrame(int index) {
+    if (index < 0 || index >= frameFiles.size()) {
+      return false;
+    }
+    File file = frameFiles.get(index);
+    BufferedImage image;
+    try {
+      image = ImageIO.read(file);
+    } catch (IOException e) {
+      image = null;
+    }
+    if (image == null) {
+      Debug.error("FileScreen: not an image: %s", file);
+      return false;
+    }
+    if (frame != null && (image.getWidth() != frame.getWidth() || image.getHeight() != frame.getHeight())) {
+      Debug.error("FileScreen: %s: size %dx%d differs from the screen", file, image.getWidth(), image.getHeight());
+      return false;
+    }
+    if (image.getType() != BufferedImage.TYPE_INT_RGB) {
+      // the captures are subimages sharing the frame's raster:
+      // for INT_RGB makeMat honors their offset and stride
+      BufferedImage imageRGB = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+      Graphics2D graphics = imageRGB.createGraphics();
+      graphics.drawImage(image, 0, 0, null);
+      graphics.dispose();
+      image = imageRGB;
+    }
+    boolean first = frame == null;
+    frame = image;
+    frameIndex = index;
+    log(lvl + 1, "frame %d: %s", index, file.getName());
+    if (first) {
+      init();
+    }
+    return true;
+  }
+  //</editor-fold>
+
+  //<editor-fold desc="IScreen">
+  @Override
+  public boolean isValid() {
+    return frame != null;
+  }
+
+  @Override
+  public String isValidWithMessage() {
+    if (isValid()) return "";
+    else return "Not valid: " + toStringShort();
+  }
+
+  @Override
+  public String getDeviceDescription() {
+    return toStringShort();
+  }
+
+  @Override
+  public String getIDString() {
+    return "File " + path;
+  }
+
+  @Override
+  public int getID() {
+    return 0;
+  }
+
+  @Override
+  public int getIdFromPoint(int srcx, int srcy) {
+    return 0;
+  }
+
+  @Override
+  public IRobot getRobot() {
+    return robot;
+  }
+
+  /**
+   * @return where the virtual mouse of this screen is (last move or click)
+   */
+  public Location getMouseLocation() {
+    return newLocation(robot.getMouseLocation());
+  }
+
+  @Override
+  public Rectangle getBounds() {
+    if (frame == null) {
+      return new Rectangle();
+    }
+    return new Rectangle(0, 0, frame.getWidth(), frame.getHeight());
+  }
+
+  @Override
+  public ScreenImage capture() {
+    return capture(getBounds());
+  }
+
+  @Override
+  public ScreenImage capture(Region reg) {
+    return capture(reg.x, reg.y, reg.w, reg.h);
+  }
+
+  @Override
+  public ScreenImage capture(Rectangle rect) {
+    return capture(rect.x, rect.y, rect.width, rect.height);
+  }
+
+  @Override
+  public synchronized ScreenImage capture(int x, int y, int w, int h) {
+    if (frame == null) {
+      return null;
+    }
+    updateFrame();
+    Rectangle rect = new Rectangle(x, y, w, h).intersection(getBounds());
+    if (rect.isEmpty()) {
+      return null;
+    }
+    // the frames (TYPE_INT_RGB) are never changed, so the subimage can be shared
+    ScreenImage img = new ScreenImage(rect, frame.getSubimage(rect.x, rect.y, rect.width, rect.height));
+    lastScreenImage = img;
+    log(lvl + 1, "capture: (%d,%d) %dx%d frame %d", x, y, w, h, frameIndex);
+    return img;
+  }
+
+  @Override
+  public ScreenImage getLastScreenImageFromScreen() {
+    return lastScreenImage;
+  }
+
+  @Override
+  public ScreenImage userCapture(String msg) {
+    log(-1, "userCapture: not possible (%s)", msg);
+    return null;
+  }
+
+  @Override
+  protected <PSIMRL> Location getLocationFromTarget(PSIMRL target) throws FindFailed {
+    Location location = super.getLocationFromTarget(target);
+    if (location != null) {
+      location.setOtherScreen(this);
+    }
+    return location;
+  }
+
+  @Override
+  public Region setOther(Region element) {
+    element.setOtherScreen(this);
+    return element;
+  }
+
+  @Override
+  public Location setOther(Location element) {
+    element.setOtherScreen(this);
+    return element;
+  }
+
+  @Override
+  public Location newLocation(int x, int y) {
+    Location loc = new Location(x, y);
+    loc.setOtherScreen(this);
+    return loc;
+  }
+
+  @Override
+  public Location newLocation(Location loc) {
+    return newLocation(loc.x, loc.y);
+  }
+
+  @Override
+  public Region newRegion(int x, int y, int w, int h) {
+    Region reg = Region.create(x, y, w, h, this);
+    reg.setOtherScreen(this);
+    return reg;
+  }
+
+  @Override
+  public Region newRegion(Location loc, int w, int h) {
+    return newRegion(loc.x, loc.y, w, h);
+  }
+
+  @Override
+  public Region newRegion(Region reg) {
+    return newRegion(reg.x, reg.y, reg.w, reg.h);
+  }
+  //</editor-fold>
+
+  @Override
+  public String toString() {
+    return String.format("FileScreen[%s: %d frames %dx%d]", path, frameFiles.size(),
+            getBounds().width, getBounds().height);
+  }
+}
@@ -0,0 +1,308 @@
+/*
+ * Copyright (c) 2010-2019, sikuli.org, sikulix.com - MIT license
+ */
+package org.sikuli.script.support;
+
+import org.sikuli.basics.Debug;
+import org.sikuli.basics.Settings;
+import org.sikuli.script.ScreenImage;
+
+import javax.imageio.ImageIO;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * INTERNAL USE: the most recent captures of a screen (Settings.FrameHistorySize)
+ * <br>the frames are kept deflate-compressed with their timestamp, the oldest are dropped,
+ * when there are more than FrameHistorySize or they need more than Settings.FrameHistoryMaxMB
+ * <br>compression runs on a background thread, so the capturing thread is not delayed
+ * <br>frames waiting for the compression count against FrameHistoryMaxMB with their uncompressed size
+ */
+public class FrameHistory {
+
+  private static String me = "FrameHistory: ";
+  private static int lvl = 3;
+
+  private static void log(int level, String message, Object... args) {
+    Debug.logx(level, me + message, args);
+  }
+
+  /**
+   * one captured frame
+   */
+  public static class Frame {
+    private final long time;
+    private final Rectangle rect;
+    private final byte[] data;
+
+    private Frame(long time, Rectangle rect, byte[] data) {
+      this.time = time;
+      this.rect = rect;
+      this.data = data;
+    }
+
+    /**
+     * @return capture time (milliseconds since epoch)
+     */
+    public long getTime() {
+      return time;
+    }
+
+    /**
+     * @return the captured screen rectangle
+     */
+    public Rectangle getRect() {
+      return new Rectangle(rect);
+    }
+
+    /**
+     * @return compressed size in bytes
+     */
+    public int getSize() {
+      return data.length;
+    }
+
+    /**
+     * @return the frame uncompressed
+     */
+    public ScreenImage getImage() {
+      int[] pixels = new int[rect.width * rect.height];
+      byte[] bytes = new byte[3 * pixels.length];
+      Inflater inflater = new Inflater();
+      try {
+        inflater.setInput(data);
+        int done = 0;
+        while (done < bytes.length && !inflater.finished()) {
+          done += inflater.inflate(bytes, done, bytes.length - done);
+        }
+      } catch (DataFormatException e) {
+        log(-1, "getImage: %s", e.getMessage());
+        return null;
+      } finally {
+        inflater.end();
+      }
+      for (int i = 0, b = 0; i < pixels.length; i++, b += 3) {
+        pixels[i] = ((bytes[b] & 0xff) << 16) | ((bytes[b + 1] & 0xff) << 8) | (bytes[b + 2] & 0xff);
+      }
+      BufferedImage bimg = new BufferedImage(rect.width, rect.height, BufferedImage.TYPE_INT_RGB);
+      bimg.setRGB(0, 0, rect.width, rect.height, pixels, 0, rect.width);
+      return new ScreenImage(new Rectangle(rect), bimg);
+    }
+  }
+
+  private final Deque<Frame> frames = new ArrayDeque<>();
+  private long bytes = 0;
+  private long pendingBytes = 0;
+
+  private static final int maxPending = 8;
+  private static final AtomicInteger dropped = new AtomicInteger();
+  private static ThreadPoolExecutor compressor = null;
+
+  /**
+   * one daemon thread for all screens - if it cannot keep up, new frames are dropped (see add)
+   */
+  private static synchronized ThreadPoolExecutor getCompressor() {
+    if (compressor == null) {
+      compressor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+              new LinkedBlockingQueue<>(maxPending), runnable -> {
+        Thread thread = new Thread(runnable, "SikuliX-FrameHistory");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+    return compressor;
+  }
+
+  /**
+   * add the frame and drop the oldest frames beyond the limits
+   * <br>the compression is done in the background (captured images are never changed afterwards)
+   * <br>if the uncompressed frame does not fit into FrameHistoryMaxMB together with the frames
+   * still waiting for the compression, it is dropped - without waiting frames it is compressed
+   * right away (the caller waits)
+   *
+   * @param simg the captured image
+   */
+  public void add(ScreenImage simg) {
+    if (Settings.FrameHistorySize < 1) {
+      return;
+    }
+    long time = new Date().getTime();
+    long rawBytes = 4L * simg.getImage().getWidth() * simg.getImage().getHeight();
+    long maxBytes = Settings.FrameHistoryMaxMB * 1024L * 1024L;
+    boolean compressNow = false;
+    synchronized (this) {
+      if (pendingBytes + rawBytes > maxBytes) {
+        if (pendingBytes > 0) {
+          dropFrame();
+          return;
+        }
+        compressNow = true;
+      } else {
+        // the oldest frames make room for the pending one
+        pendingBytes += rawBytes;
+        trim();
+      }
+    }
+    if (compressNow) {
+      compress(simg, time, 0);
+      return;
+    }
+    try {
+      getCompressor().execute(() -> compress(simg, time, rawBytes));
+    } catch (RejectedExecutionException e) {
+      synchronized (this) {
+        pendingBytes -= rawBytes;
+      }
+      dropFrame();
+    }
+  }
+
+  private static void dropFrame() {
+    if (dropped.incrementAndGet() % 100 == 1) {
+      log(lvl, "compression too slow: %d frames dropped", dropped.get());
+    }
+  }
+
+  private void trim() {
+    long maxBytes = Settings.FrameHistoryMaxMB * 1024L * 1024L;
+    while (frames.size() > 0
+            && (frames.size() > Settings.FrameHistorySize || bytes + pendingBytes > maxBytes)) {
+      bytes -= frames.removeFirst().getSize();
+    }
+  }
+
+  /**
+   * waits until the frames added before are compressed
+   */
+  private static void flush() {
+    ThreadPoolExecutor executor = getCompressor();
+    long end = new Date().getTime() + 5000;
+    while (executor.getQueue().size() + executor.getActiveCount() > 0 && new Date().getTime() < end) {
+      try {
+        Thread.sleep(10);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  private void compress(ScreenImage simg, long time, long rawBytes) {
+    BufferedImage bimg = simg.getImage();
+    int width = bimg.getWidth();
+    int height = bimg.getHeight();
+    int[] pixels = bimg.getRGB(0, 0, width, height, null, 0, width);
+    byte[] raw = new byte[3 * pixels.length];
+    for (int i = 0, b = 0; i < pixels.length; i++, b += 3) {
+      raw[b] = (byte) (pixels[i] >> 16);
+      raw[b + 1] = (byte) (pixels[i] >> 8);
+      raw[b + 2] = (byte) pixels[i];
+    }
+    Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 8);
+    try {
+      deflater.setInput(raw);
+      deflater.finish();
+      byte[] buffer = new byte[64 * 1024];
+      while (!deflater.finished()) {
+        out.write(buffer, 0, deflater.deflate(buffer));
+      }
+    } finally {
+      deflater.end();
+    }
+    Rectangle rect = new Rectangle(simg.getROI().x, simg.getROI().y, width, height);
+    Frame frame = new Frame(time, rect, out.toByteArray());
+    synchronized (this) {
+      pendingBytes -= rawBytes;
+      frames.addLast(frame);
+      bytes += frame.getSize();
+      trim();
+    }
+  }
+
+  /**
+   * @return the frames, oldest first
+   */
+  public synchronized List<Frame> getFrames() {
+    return new ArrayList<>(frames);
+  }
+
+  /**
+   * @param millis how far to look back
+   * @return the frames captured within the last millis, oldest first
+   */
+  public synchronized List<Frame> getFrames(long millis) {
+    long since = new Date().getTime() - millis;
+    List<Frame> recent = new ArrayList<>();
+    for (Frame frame : frames) {
+      if (frame.getTime() >= since) {
+        recent.add(frame);
+      }
+    }
+    return recent;
+  }
+
+  /**
+   * @return the compressed size of all frames in bytes
+   */
+  public synchronized long getBytes() {
+    return bytes;
+  }
+
+  public synchronized void clear() {
+    frames.clear();
+    bytes = 0;
+  }
+
+  /**
+   * store the frames of the last millis as PNG files (named by capture time and rectangle)
+   *
+   * @param folder where to store (created if there are frames)
+   * @param millis how far to look back
+   * @return number of files written
+   */
+  public int save(File folder, long millis) {
+    flush();
+    List<Frame> recent = getFrames(millis);
+    if (recent.isEmpty()) {
+      return 0;
+    }
+    folder.mkdirs();
+    SimpleDateFormat format = new SimpleDateFormat("yyyyMMdd-HHmmss-SSS");
+    int saved = 0;
+    for (Frame frame : recent) {
+      Rectangle rect = frame.getRect();
+      String name = String.format("%s_%d_%d_%dx%d.png", format.format(new Date(frame.getTime())),
+              rect.x, rect.y, rect.width, rect.height);
+      ScreenImage simg = frame.getImage();
+      if (simg == null) {
+        continue;
+      }
+      try {
+        ImageIO.write(simg.getImage(), "png", new File(folder, name));
+        saved++;
+      } catch (IOException e) {
+        log(-1, "save: %s: %s", name, e.getMessage());
+      }
+    }
+    log(lvl, "save: %d frames to %s", saved, folder);
+    return saved;
+  }
+}
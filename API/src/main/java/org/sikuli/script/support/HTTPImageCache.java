@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2010-2019, sikuli.org, sikulix.com - MIT license
+ */
+package org.sikuli.script.support;
+
+import org.sikuli.basics.Debug;
+import org.sikuli.basics.FileManager;
+import org.sikuli.basics.Settings;
+
+import javax.imageio.ImageIO;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * INTERNAL USE: local disk cache for images loaded from http(s) image paths (Settings.HTTPImageCacheFolder)
+ * <br>the content is stored once per SHA-256 of the bytes (content/), for each URL the ETag, Last-Modified
+ * and the content hash is kept (urls/)
+ * <br>a URL is revalidated (conditional GET) once per session, with Settings.HTTPImageOffline never -
+ * if the server cannot be reached, the cached content is used
+ * <br>a download is only stored, if it is complete (Content-Length) and can be read as an image
+ * <br>URLs not available (not found, or not reachable and not cached) are not tried again in this session
+ */
+public class HTTPImageCache {
+
+  private static String me = "HTTPImageCache: ";
+  private static int lvl = 3;
+
+  private static void log(int level, String message, Object... args) {
+    Debug.logx(level, me + message, args);
+  }
+
+  private static final String keyURL = "url";
+  private static final String keyETag = "etag";
+  private static final String keyLastModified = "lastModified";
+  private static final String keyContent = "content";
+
+  // URLs revalidated in this session -> content file
+  private static final Map<String, File> validated = new ConcurrentHashMap<>();
+  // URLs not available in this session (not found or not reachable and not cached)
+  private static final Set<String> unavailable = ConcurrentHashMap.newKeySet();
+  private static final Map<String, Object> urlLocks = new ConcurrentHashMap<>();
+
+  /**
+   * @return true if Settings.HTTPImageCacheFolder is set
+   */
+  public static boolean isActive() {
+    return Settings.HTTPImageCacheFolder != null && !Settings.HTTPImageCacheFolder.isEmpty();
+  }
+
+  /**
+   * forget which URLs were revalidated or not available in this session (they are checked again on next use)
+   */
+  public static void reset() {
+    validated.clear();
+    unavailable.clear();
+  }
+
+  /**
+   * @param url an http(s) URL
+   * @return the local file with the current content or null (not available)
+   */
+  public static File get(URL url) {
+    if (!isActive()) {
+      return null;
+    }
+    String key = url.toString();
+    File content = validated.get(key);
+    if (content != null && content.exists()) {
+      return content;
+    }
+    if (unavailable.contains(key)) {
+      return null;
+    }
+    synchronized (urlLocks.computeIfAbsent(key, k -> new Object())) {
+      content = validated.get(key);
+      if (content != null && content.exists()) {
+        return content;
+      }
+      if (unavailable.contains(key)) {
+        return null;
+      }
+      content = fetch(url);
+      if (content != null) {
+        validated.put(key, content);
+      } else {
+        unavailable.add(key);
+      }
+      return content;
+    }
+  }
+
+  private static File getFolder(String name) {
+    File folder = new File(Settings.HTTPImageCacheFolder, name);
+    folder.mkdirs();
+    return folder;
+  }
+
+  private static File fetch(URL url) {
+    File metaFile = new File(getFolder("urls"), hash(url.toString().getBytes(StandardCharsets.UTF_8)) + ".properties");
+    Properties meta = new Properties();
+    File cached = null;
+    if (metaFile.exists()) {
+      try (InputStream in = new FileInputStream(metaFile)) {
+        meta.load(in);
+        File contentFile = new File(getFolder("content"), meta.getProperty(keyContent, "") + ".png");
+        if (url.toString().equals(meta.getProperty(keyURL)) && contentFile.exists()) {
+          cached = contentFile;
+        }
+      } catch (IOException e) {
+        log(-1, "%s: metadata not readable: %s", url, e.getMessage());
+      }
+    }
+    if (Settings.HTTPImageOffline) {
+      log(lvl + 1, "offline: %s %s", url, cached == null ? "not cached" : "from cache");
+      return cached;
+    }
+    HttpURLConnection conn = null;
+    try {
+      if (FileManager.getProxy() != null) {
+        conn = (HttpURLConnection) url.openConnection(FileManager.getProxy());
+      } else {
+        conn = (HttpURLConnection) url.openConnection();
+      }
+      if (cached != null) {
+        if (meta.getProperty(keyETag) != null) {
+          conn.setRequestProperty("If-None-Match", meta.getProperty(keyETag));
+        }
+        if (meta.getProperty(keyLastModified) != null) {
+          conn.setRequestProperty("If-Modified-Since", meta.getProperty(keyLastModified));
+        }
+      }
+      int status = conn.getResponseCode();
+      if (status == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+        log(lvl + 1, "not modified: %s", url);
+        return cached;
+      }
+      if (status != HttpURLConnection.HTTP_OK) {
+        log(lvl, "%s: HTTP %d", url, status);
+        return null;
+      }
+      File temp = File.createTempFile("download", ".tmp", getFolder("content"));
+      String contentHash;
+      File contentFile;
+      try {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        long length = 0;
+        try (InputStream in = conn.getInputStream(); OutputStream out = new FileOutputStream(temp)) {
+          byte[] buffer = new byte[64 * 1024];
+          int n;
+          while ((n = in.read(buffer)) > 0) {
+            digest.update(buffer, 0, n);
+            out.write(buffer, 0, n);
+            length += n;
+          }
+        }
+        long expected = conn.getContentLengthLong();
+        if (expected >= 0 && expected != length) {
+          throw new IOException(String.format("incomplete: %d of %d bytes", length, expected));
+        }
+        if (ImageIO.read(temp) == null) {
+          throw new IOException("not an image");
+        }
+        contentHash = toHex(digest.digest());
+        contentFile = new File(getFolder("content"), contentHash + ".png");
+        if (!contentFile.exists()) {
+          Files.move(temp.toPath(), contentFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                  StandardCopyOption.ATOMIC_MOVE);
+        }
+      } finally {
+        temp.delete();
+      }
+      meta.clear();
+      meta.setProperty(keyURL, url.toString());
+      meta.setProperty(keyContent, contentHash);
+      if (conn.getHeaderField("ETag") != null) {
+        meta.setProperty(keyETag, conn.getHeaderField("ETag"));
+      }
+      if (conn.getHeaderField("Last-Modified") != null) {
+        meta.setProperty(keyLastModified, conn.getHeaderField("Last-Modified"));
+      }
+      File metaTemp = File.createTempFile("meta", ".tmp", getFolder("urls"));
+      try {
+        try (OutputStream out = new FileOutputStream(metaTemp)) {
+          meta.store(out, null);
+        }
+        Files.move(metaTemp.toPath(), metaFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        metaTemp.delete();
+      }
+      log(lvl, "fetched: %s (%d KB)", url, contentFile.length() / 1024);
+      return contentFile;
+    } catch (IOException | NoSuchAlgorithmException e) {
+      log(-1, "%s: %s%s", url, e.getMessage(), cached == null ? "" : " (using cached)");
+      return cached;
+    } finally {
+      if (conn != null) {
+        conn.disconnect();
+      }
+    }
+  }
+
+  private static String hash(byte[] bytes) {
+    try {
+      return toHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+    } catch (NoSuchAlgorithmException e) {
+      return Integer.toHexString(new String(bytes, StandardCharsets.UTF_8).hashCode());
+    }
+  }
+
+  private static String toHex(byte[] bytes) {
+    StringBuilder hex = new StringBuilder();
+    for (byte b : bytes) {
+      hex.append(String.format("%02x", b));
+    }
+    return hex.toString();
+  }
+}
@@ -13,6 +13,7 @@ import com.sun.jna.platform.win32.BaseTSD;
 import com.sun.jna.platform.win32.User32;
 import com.sun.jna.platform.win32.WinDef;
 import com.sun.jna.platform.win32.WinUser;
+import org.sikuli.natives.X11ShmCapture;
 import org.sikuli.script.*;
 import org.sikuli.util.Highlight;
 
@@ -83,7 +84,16 @@ public class RobotDesktop extends Robot implements IRobot {
 //    Rectangle s = scr.getBounds();
     Rectangle cRect = new Rectangle(rect);
 //    cRect.translate(-s.x, -s.y);
-    BufferedImage img = createScreenCapture(rect);
+    BufferedImage img = null;
+    if (Settings.LinuxCaptureShm && RunTime.get().runningLinux) {
+      X11ShmCapture shmCapture = X11ShmCapture.get();
+      if (shmCapture != null) {
+        img = shmCapture.capture(rect);
+      }
+    }
+    if (img == null) {
+      img = createScreenCapture(rect);
+    }
     Debug.log(4, "RobotDesktop: captureScreen: [%d,%d, %dx%d]",
         rect.x, rect.y, rect.width, rect.height);
     return new ScreenImage(rect, img);
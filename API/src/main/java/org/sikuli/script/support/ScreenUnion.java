@@ -4,12 +4,15 @@
 package org.sikuli.script.support;
 
 import org.sikuli.basics.Debug;
+import org.sikuli.basics.Settings;
 import org.sikuli.script.Location;
 import org.sikuli.script.Region;
 import org.sikuli.script.Screen;
 import org.sikuli.script.ScreenImage;
 
 import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * CANDIDATE FOR DEPRECATION
@@ -63,6 +66,25 @@ public class ScreenUnion extends Screen {
     return _bounds;
   }
 
+  /**
+   * with Settings.FindScreenParts each monitor is captured and searched on its own (in parallel)
+   * - the space between monitors is not searched
+   * <br>a target spanning two monitors is not found this way
+   *
+   * @return the screens or null (not switched on or only one monitor)
+   */
+  @Override
+  protected List<Region> getSearchParts() {
+    if (!Settings.FindScreenParts || Screen.getNumberScreens() < 2) {
+      return null;
+    }
+    List<Region> parts = new ArrayList<>();
+    for (int i = 0; i < Screen.getNumberScreens(); i++) {
+      parts.add(Screen.getScreen(i));
+    }
+    return parts;
+  }
+
   @Override
   public ScreenImage capture(Rectangle rect) {
     Debug.log(4, "ScreenUnion: capture: (%d,%d) %dx%d", rect.x, rect.y, rect.width, rect.height);
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2010-2019, sikuli.org, sikulix.com - MIT license
+ */
+
+package org.sikuli.util;
+
+import com.sun.jna.Pointer;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.sikuli.script.Finder;
+import org.sikuli.script.support.RunTime;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Random;
+
+/**
+ * INTERNAL USE: micro benchmark for the conversion of a TYPE_INT_RGB capture into the Mat used by the find
+ * <br>compares per conversion (ms):
+ * <br>- makeMat: copy into a BGRA Mat (JNA) + native cvtColor to BGR (two passes, the current way)
+ * <br>- BGRA only: the copy alone (what matching in BGRA would cost)
+ * <br>- java loop: one pass in Java into a byte[] (BGR) + Mat.put
+ * <br>usage: MakeMatBenchmark [width height [rounds]] (default 1920 1080 200)
+ */
+public class MakeMatBenchmark {
+
+  private static void p(String msg, Object... args) {
+    System.out.println(String.format(msg, args));
+  }
+
+  public static void main(String[] args) {
+    int width = args.length > 1 ? Integer.parseInt(args[0]) : 1920;
+    int height = args.length > 1 ? Integer.parseInt(args[1]) : 1080;
+    int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+    RunTime.loadLibrary(RunTime.libOpenCV);
+
+    BufferedImage bImg = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    int[] pixels = ((DataBufferInt) bImg.getRaster().getDataBuffer()).getData();
+    Random random = new Random(1);
+    for (int i = 0; i < pixels.length; i++) {
+      pixels[i] = random.nextInt() & 0xffffff;
+    }
+    p("MakeMatBenchmark: %d x %d, %d rounds", width, height, rounds);
+
+    // warm up (JIT, Mat pool)
+    for (int n = 0; n < rounds / 4 + 1; n++) {
+      Finder.Finder2.makeMat(bImg).release();
+      bgraOnly(pixels, width, height).release();
+      javaLoop(pixels, width, height).release();
+    }
+
+    long start = System.nanoTime();
+    for (int n = 0; n < rounds; n++) {
+      Finder.Finder2.makeMat(bImg).release();
+    }
+    report("makeMat (BGRA + cvtColor)", start, rounds);
+
+    start = System.nanoTime();
+    for (int n = 0; n < rounds; n++) {
+      bgraOnly(pixels, width, height).release();
+    }
+    report("BGRA only", start, rounds);
+
+    start = System.nanoTime();
+    for (int n = 0; n < rounds; n++) {
+      javaLoop(pixels, width, height).release();
+    }
+    report("java loop (byte[] + put)", start, rounds);
+  }
+
+  private static void report(String what, long start, int rounds) {
+    p("%-28s %8.3f ms", what, (System.nanoTime() - start) / 1e6 / rounds);
+  }
+
+  private static Mat bgraOnly(int[] pixels, int width, int height) {
+    Mat mBGRA = new Mat(height, width, CvType.CV_8UC4);
+    new Pointer(mBGRA.dataAddr()).write(0, pixels, 0, pixels.length);
+    return mBGRA;
+  }
+
+  private static Mat javaLoop(int[] pixels, int width, int height) {
+    byte[] bytes = new byte[3 * pixels.length];
+    for (int i = 0, b = 0; i < pixels.length; i++, b += 3) {
+      bytes[b] = (byte) pixels[i];
+      bytes[b + 1] = (byte) (pixels[i] >> 8);
+      bytes[b + 2] = (byte) (pixels[i] >> 16);
+    }
+    Mat mBGR = new Mat(height, width, CvType.CV_8UC3);
+    mBGR.put(0, 0, bytes);
+    return mBGR;
+  }
+}
@@ -6,14 +6,24 @@ package org.sikuli.util;
 
 import org.sikuli.basics.Debug;
 import org.sikuli.basics.Settings;
+import org.sikuli.natives.X11ShmCapture;
 import org.sikuli.script.*;
+import org.sikuli.script.support.FileScreen;
 import org.sikuli.script.support.RunTime;
 
+import javax.imageio.ImageIO;
+import java.awt.AWTException;
+import java.awt.Rectangle;
+import java.awt.Robot;
+import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.Random;
 
 public class SikulixTest {
 
@@ -206,6 +216,11 @@ public class SikulixTest {
   public static void main(String[] args) {
     //Debug.on(3);
 
+    if (args.length > 0 && "fileScreen".equals(args[0])) {
+      // no display needed (e.g. -Djava.awt.headless=true)
+      System.exit(testFileScreen() ? 0 : 1);
+    }
+
     try {
       ImagePath.setBundlePath(new File("..", "_Support/_test").getCanonicalPath());
       p("ImagePath: %s", ImagePath.getBundlePath());
@@ -280,6 +295,8 @@ public class SikulixTest {
 //    runTest.add(11); // find SwitchToText
 //    runTest.add(12); // class App
 //    runTest.add(13); // Android
+//    runTest.add(14); // Linux: MIT-SHM capture (e.g. xvfb-run)
+//    runTest.add(15); // FileScreen find/click (headless: run with argument fileScreen)
 
     if (runTest.size() > 1) {
       if (-1 < runTest.indexOf(0)) {
@@ -576,5 +593,108 @@ public class SikulixTest {
 //      p("%s", capture);
 //    }
     //</editor-fold>
+
+    //<editor-fold desc="test14 MIT-SHM capture">
+    // only on Linux with an X display (e.g. xvfb-run) - compares with the AWT Robot capture
+    if (shouldRunTest(14) && runTime.runningLinux && System.getenv("DISPLAY") != null) {
+      before("test14", "X11ShmCapture vs. Robot");
+      X11ShmCapture shmCapture = X11ShmCapture.get();
+      if (shmCapture == null) {
+        p("not available (no MIT-SHM?) - skipped");
+      } else {
+        try {
+          Robot robot = new Robot();
+          // a strip over the full width and a small area of odd size
+          Rectangle[] rects = new Rectangle[]{
+                  new Rectangle(0, 0, scr.w, Math.min(100, scr.h)),
+                  new Rectangle(13, 7, 33, 17)};
+          for (Rectangle rect : rects) {
+            BufferedImage shmImg = shmCapture.capture(rect);
+            BufferedImage awtImg = robot.createScreenCapture(rect);
+            if (shmImg == null) {
+              error("capture %s: null", rect);
+              continue;
+            }
+            int[] shmPixels = shmImg.getRGB(0, 0, rect.width, rect.height, null, 0, rect.width);
+            int[] awtPixels = awtImg.getRGB(0, 0, rect.width, rect.height, null, 0, rect.width);
+            if (Arrays.equals(shmPixels, awtPixels)) {
+              p("capture %s: same as Robot", rect);
+            } else {
+              error("capture %s: differs from Robot", rect);
+            }
+          }
+        } catch (AWTException e) {
+          error("Robot: %s", e.getMessage());
+        }
+      }
+      after();
+    }
+    //</editor-fold>
+
+    //<editor-fold desc="test15 FileScreen find/click">
+    if (shouldRunTest(15)) {
+      testFileScreen();
+    }
+    //</editor-fold>
+  }
+
+  /**
+   * find and click on a FileScreen showing a generated frame (no display used)
+   *
+   * @return true if found at the right place and clicked there
+   */
+  private static boolean testFileScreen() {
+    before("test15", "FileScreen find/click");
+    boolean ok = false;
+    try {
+      File folder = Files.createTempDirectory("SikulixTest").toFile();
+      File frames = new File(folder, "frames");
+      frames.mkdirs();
+      // random pixels: the target is only found at its place
+      BufferedImage frame = new BufferedImage(400, 300, BufferedImage.TYPE_INT_RGB);
+      Random random = new Random(15);
+      for (int y = 0; y < frame.getHeight(); y++) {
+        for (int x = 0; x < frame.getWidth(); x++) {
+          frame.setRGB(x, y, random.nextInt() & 0xffffff);
+        }
+      }
+      Rectangle targetRect = new Rectangle(123, 77, 40, 30);
+      ImageIO.write(frame, "png", new File(frames, "frame0.png"));
+      File target = new File(folder, "target.png");
+      ImageIO.write(frame.getSubimage(targetRect.x, targetRect.y, targetRect.width, targetRect.height),
+              "png", target);
+
+      FileScreen fileScreen = FileScreen.start(frames.getAbsolutePath());
+      if (fileScreen == null) {
+        error("FileScreen: not started");
+      } else {
+        Match match = fileScreen.find(target.getAbsolutePath());
+        p("found: %s", match);
+        if (match.x != targetRect.x || match.y != targetRect.y || match.getScore() < 0.99) {
+          error("found at (%d,%d) %.3f - expected (%d,%d)", match.x, match.y, match.getScore(),
+                  targetRect.x, targetRect.y);
+        } else {
+          fileScreen.click(match);
+          Location clicked = fileScreen.getMouseLocation();
+          Location center = match.getCenter();
+          if (clicked.x == center.x && clicked.y == center.y) {
+            p("clicked at %s", clicked);
+            ok = true;
+          } else {
+            error("clicked at %s - expected %s", clicked, center);
+          }
+        }
+      }
+      for (File file : frames.listFiles()) {
+        file.delete();
+      }
+      frames.delete();
+      target.delete();
+      folder.delete();
+    } catch (IOException | FindFailed e) {
+      error("FileScreen: %s", e.getMessage());
+    }
+    p("***** ending test15: %s", ok ? "ok" : "failed");
+    return ok;
   }
 }
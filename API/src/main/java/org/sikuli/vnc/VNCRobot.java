@@ -160,6 +160,7 @@ class VNCRobot implements IRobot {
   private void pressKey(int key) {
     try {
       screen.getClient().keyDown(key);
+      screen.resetCaptureCache();
       pressedKeys.add(key);
     } catch (IOException e) {
       e.printStackTrace();
@@ -169,6 +170,7 @@ class VNCRobot implements IRobot {
   private void releaseKey(int key) {
     try {
       screen.getClient().keyUp(key);
+      screen.resetCaptureCache();
       pressedKeys.remove(key);
     } catch (IOException e) {
       e.printStackTrace();
@@ -585,6 +587,7 @@ class VNCRobot implements IRobot {
   public void mouseMove(int x, int y) {
     try {
       screen.getClient().mouseEvent(mouseButtons, x, y);
+      screen.resetCaptureCache();
       mouseX = x;
       mouseY = y;
     } catch (IOException e) {
@@ -21,6 +21,7 @@ public class VNCScreen extends Region implements IScreen {
   private VNCClient client;
   private IRobot robot;
   private ScreenImage lastScreenImage;
+  private final VNCSessionManager.Counters counters = new VNCSessionManager.Counters();
 
   private static String stdIP = "127.0.0.1";
   private static int stdPort = 5900;
@@ -97,18 +98,21 @@ public class VNCScreen extends Region implements IScreen {
     setRect(getBounds());
     initScreen(this);
 
-    new Thread(new Runnable() {
-      @Override
-      public void run() {
-        try {
-          client.processMessages();
-        } catch (RuntimeException e) {
-          if (isRunning()) {
-            throw e;
-          }
+    final VNCClient sessionClient = client;
+    boolean started = VNCSessionManager.startMessageLoop(this, () -> {
+      try {
+        sessionClient.processMessages();
+      } catch (RuntimeException e) {
+        if (isRunning()) {
+          throw e;
         }
       }
-    }).start();
+    });
+    if (!started) {
+      Debug.error("VNCScreen: start: %s: no message loop possible", id);
+      close();
+      return;
+    }
     client.refreshFramebuffer();
 
     screens.put(id, this);
@@ -165,6 +169,23 @@ public class VNCScreen extends Region implements IScreen {
     screens.remove(this.id);
   }
 
+  static List<VNCScreen> getRunning() {
+    List<VNCScreen> running = new ArrayList<>();
+    for (VNCScreen scr : screens.values()) {
+      if (scr.isRunning()) {
+        running.add(scr);
+      }
+    }
+    return running;
+  }
+
+  /**
+   * @return frame rate and latency of this session
+   */
+  public VNCSessionManager.Counters getCounters() {
+    return counters;
+  }
+
   public static void stopAll() {
     if (screens.size() > 0) {
       Debug.log(3, "VNCScreen: stopping all");
@@ -221,7 +242,18 @@ public class VNCScreen extends Region implements IScreen {
     if (!isRunning()) {
       return null;
     }
+    counters.capture();
+    long frameInterval = VNCSessionManager.getFrameInterval();
+    if (frameInterval > 0) {
+      ScreenImage img = captureCached(new Rectangle(x, y, w, h), frameInterval);
+      if (img != null) {
+        lastScreenImage = img;
+        return img;
+      }
+    }
+    long start = new Date().getTime();
     BufferedImage image = client.getFrameBuffer(x, y, w, h);
+    counters.frame(new Date().getTime() - start);
     ScreenImage img = new ScreenImage(
             new Rectangle(x, y, w, h),
             image
@@ -231,6 +263,44 @@ public class VNCScreen extends Region implements IScreen {
     return img;
   }
 
+  //<editor-fold desc="capture cache">
+  private ScreenImage cachedFrame = null;
+  private long cachedFrameTime = -1;
+
+  /**
+   * with Settings.VNCMaxFrameRate one copy of the whole framebuffer is taken from the client
+   * and the captures within the frame interval are views into it (ScreenImage.getSub)
+   *
+   * @return the image or null (rectangle not within the screen)
+   */
+  private synchronized ScreenImage captureCached(Rectangle rect, long frameInterval) {
+    Rectangle screenRect = getBounds();
+    if (!screenRect.contains(rect)) {
+      return null;
+    }
+    long now = new Date().getTime();
+    if (cachedFrame == null || !cachedFrame.getROI().equals(screenRect)
+            || now - cachedFrameTime > frameInterval) {
+      cachedFrame = new ScreenImage(screenRect,
+              client.getFrameBuffer(screenRect.x, screenRect.y, screenRect.width, screenRect.height));
+      cachedFrameTime = new Date().getTime();
+      counters.frame(cachedFrameTime - now);
+      Debug.log(3, "VNCScreen: capture: framebuffer %dx%d on %s", screenRect.width, screenRect.height, this);
+    }
+    if (rect.equals(screenRect)) {
+      return cachedFrame;
+    }
+    return cachedFrame.getSub(rect);
+  }
+
+  /**
+   * drop the cached framebuffer copy (done by the VNCRobot after every mouse and keyboard action)
+   */
+  public synchronized void resetCaptureCache() {
+    cachedFrame = null;
+  }
+  //</editor-fold>
+
   @Override
   public int getID() {
     return 0;
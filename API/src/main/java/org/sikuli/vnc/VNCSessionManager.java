@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2010-2019, sikuli.org, sikulix.com - MIT license
+ */
+package org.sikuli.vnc;
+
+import org.sikuli.basics.Debug;
+import org.sikuli.basics.Settings;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * INTERNAL USE: runs the message loops of the VNCScreens and keeps the per session counters
+ * <br>the loops (VNCClient.processMessages) block on the connection, so the thread usage is unchanged:
+ * one blocking thread per running session - the threads are only taken from one pool of daemon threads
+ * and reused by later sessions (the pool is shut down, when the last session has ended)
+ * <br>the number of sessions is only limited with Settings.VNCMaxSessions (default: no limit)
+ * <br>the frame rate per session is limited by Settings.VNCMaxFrameRate
+ */
+public class VNCSessionManager {
+
+  private static String me = "VNCSessionManager: ";
+  private static int lvl = 3;
+
+  private static void log(int level, String message, Object... args) {
+    Debug.logx(level, me + message, args);
+  }
+
+  private static final AtomicInteger threadCount = new AtomicInteger();
+  private static ThreadPoolExecutor messageLoops = null;
+  private static int sessions = 0;
+
+  private static int getMaxSessions() {
+    return Settings.VNCMaxSessions > 0 ? Settings.VNCMaxSessions : Integer.MAX_VALUE;
+  }
+
+  /**
+   * one daemon thread per session (not kept beyond 30 seconds idle), at most Settings.VNCMaxSessions
+   * - shut down with the last session
+   */
+  private static ThreadPoolExecutor getMessageLoops() {
+    int maxSessions = getMaxSessions();
+    if (messageLoops == null) {
+      messageLoops = new ThreadPoolExecutor(0, maxSessions, 30, TimeUnit.SECONDS, new SynchronousQueue<>(),
+              runnable -> {
+                Thread thread = new Thread(runnable, "SikuliX-VNC-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+              });
+    } else if (messageLoops.getMaximumPoolSize() != maxSessions) {
+      messageLoops.setMaximumPoolSize(maxSessions);
+    }
+    return messageLoops;
+  }
+
+  /**
+   * @return false if not possible (already Settings.VNCMaxSessions sessions running)
+   */
+  static synchronized boolean startMessageLoop(VNCScreen screen, Runnable loop) {
+    try {
+      getMessageLoops().execute(() -> {
+        log(lvl, "%s: message loop started", screen.getIDString());
+        try {
+          loop.run();
+        } finally {
+          log(lvl, "%s: message loop ended: %s", screen.getIDString(), screen.getCounters());
+          sessionEnded();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      log(-1, "%s: not started: already %d sessions running (Settings.VNCMaxSessions)",
+              screen.getIDString(), sessions);
+      return false;
+    }
+    sessions++;
+    return true;
+  }
+
+  private static synchronized void sessionEnded() {
+    sessions--;
+    if (sessions <= 0 && messageLoops != null) {
+      sessions = 0;
+      messageLoops.shutdown();
+      messageLoops = null;
+      log(lvl, "last session ended: message loop threads stopped");
+    }
+  }
+
+  /**
+   * @return min time in milliseconds between two framebuffer copies of a session (0 = no limit)
+   */
+  static long getFrameInterval() {
+    if (Settings.VNCMaxFrameRate > 0) {
+      return (long) (1000 / Settings.VNCMaxFrameRate);
+    }
+    return 0;
+  }
+
+  /**
+   * log the counters of all running sessions
+   */
+  public static void dump() {
+    for (VNCScreen screen : VNCScreen.getRunning()) {
+      log(lvl, "%s: %s", screen.getIDString(), screen.getCounters());
+    }
+  }
+
+  /**
+   * frame rate and latency of one session
+   */
+  public static class Counters {
+    private final long started = System.currentTimeMillis();
+    private long frames = 0;
+    private long captures = 0;
+    private long frameMillis = 0;
+    private long maxFrameMillis = 0;
+
+    synchronized void frame(long millis) {
+      frames++;
+      frameMillis += millis;
+      maxFrameMillis = Math.max(maxFrameMillis, millis);
+    }
+
+    synchronized void capture() {
+      captures++;
+    }
+
+    /**
+     * @return number of framebuffer copies taken from the client
+     */
+    public synchronized long getFrames() {
+      return frames;
+    }
+
+    /**
+     * @return number of captures (including those served from a framebuffer copy)
+     */
+    public synchronized long getCaptures() {
+      return captures;
+    }
+
+    /**
+     * @return framebuffer copies per second since the session started
+     */
+    public synchronized double getFrameRate() {
+      long elapsed = Math.max(System.currentTimeMillis() - started, 1);
+      return frames * 1000.0 / elapsed;
+    }
+
+    /**
+     * @return average milliseconds needed for a framebuffer copy
+     */
+    public synchronized double getAverageLatency() {
+      return frames == 0 ? 0 : (double) frameMillis / frames;
+    }
+
+    /**
+     * @return max milliseconds needed for a framebuffer copy
+     */
+    public synchronized long getMaxLatency() {
+      return maxFrameMillis;
+    }
+
+    @Override
+    public synchronized String toString() {
+      return String.format("frames %d (%.1f/sec) captures %d latency %.1f (max %d) msec",
+              frames, getFrameRate(), captures, getAverageLatency(), maxFrameMillis);
+    }
+  }
+}